@@ -0,0 +1,139 @@
+package com.mauro.sudoku.game;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Verdicts for a pile of submitted 9x9 grids, in boards per microsecond. The
+// per-board baselines are what bulk checking did before, a SudokuLogic per grid
+// and the server's findConflicts; the batch ones include copying the grids in.
+// The vector ones need the jar built with -Pbenchmarks,vector.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class BatchValidatorBenchmark {
+    private static final int BOARDS = 4096;
+
+    private final int[][][] grids = new int[BOARDS][9][9];
+    private final long[] conflicts = new long[2];
+    private BatchValidator scalar, vector, packed;
+
+    // a quarter each of solved, one blank, one clash, and corpus puzzles
+    @Setup
+    public void setup() {
+        Random random = new Random(25);
+        String[] puzzles = Corpus.byName("hard");
+        for (int b = 0; b < BOARDS; b++) {
+            String line = b % 4 == 3 ? puzzles[b % puzzles.length] : Corpus.SOLVED;
+            for (int k = 0; k < 81; k++) {
+                char c = line.charAt(k);
+                grids[b][k / 9][k % 9] = c == '.' ? 0 : c - '0';
+            }
+            int cell = random.nextInt(81);
+            if (b % 4 == 1) {
+                grids[b][cell / 9][cell % 9] = 0;
+            } else if (b % 4 == 2) {
+                grids[b][cell / 9][cell % 9] = grids[b][cell / 9][cell % 9] % 9 + 1;
+            }
+        }
+        scalar = new BatchValidator(BOARDS, new ScalarBatchKernel());
+        vector = new BatchValidator(BOARDS);
+        packed = new BatchValidator(BOARDS);
+        for (int[][] grid : grids) {
+            packed.add(grid);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int perBoardLogic() {
+        int valid = 0;
+        for (int[][] grid : grids) {
+            SudokuLogic sudoku = SudokuGenerator.toSudoku(grid);
+            if (sudoku.isValidSudoku() && !sudoku.hasEmptyCells()) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int perBoardConflicts() {
+        int valid = 0;
+        for (int[][] grid : grids) {
+            if (!SudokuLogic.findConflicts(grid, conflicts) && !hasBlank(grid)) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int batchScalar() {
+        return batch(scalar);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int batchVector() {
+        requireVector();
+        return batch(vector);
+    }
+
+    // the kernel alone, on boards copied in once
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public BatchValidator.Verdict batchVectorPacked() {
+        requireVector();
+        packed.validate();
+        return packed.verdict(BOARDS - 1);
+    }
+
+    private void requireVector() {
+        if (!vector.isVectorized()) {
+            throw new IllegalStateException("No vector kernel, build with -Pbenchmarks,vector");
+        }
+    }
+
+    private int batch(BatchValidator validator) {
+        validator.clear();
+        for (int[][] grid : grids) {
+            validator.add(grid);
+        }
+        validator.validate();
+        int valid = 0;
+        for (int b = 0; b < BOARDS; b++) {
+            if (validator.verdict(b) == BatchValidator.Verdict.VALID) {
+                valid++;
+            }
+        }
+        return valid;
+    }
+
+    private static boolean hasBlank(int[][] grid) {
+        for (int[] row : grid) {
+            for (int val : row) {
+                if (val == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package com.mauro.sudoku.game;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Generation time per board size, from 4x4 (box 2) to 25x25 (box 5).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BoardSizeBenchmark {
+    @Param({"2", "3", "4", "5"})
+    public int box;
+
+    @Param({"EASY", "HARD"})
+    public Difficulty difficulty;
+
+    private int[][] grid;
+    private SplittableRandom random;
+    private SolutionCounter counter;
+
+    @Setup
+    public void setup() {
+        grid = new int[box * box][box * box];
+        random = new SplittableRandom(42);
+        counter = new SolutionCounter(box);
+    }
+
+    @Benchmark
+    public int[][] solutionGrid() {
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        SudokuGenerator.shuffledSolution(grid, random);
+        return grid;
+    }
+
+    @Benchmark
+    public int[][] fullPuzzle() {
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        SudokuGenerator.generateSudoku(grid, difficulty, random, counter);
+        return grid;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mauro.sudoku.game;
+
+final class Corpus {
+    static final String[] EASY = {
+        "530070000600195000098000060800060003400803001700020006060000280000419005000080079",
+        "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+    };
+
+    static final String[] HARD = {
+        "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+        "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+        "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+    };
+
+    static final String[] SEVENTEEN = {
+        "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+        "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+        "000000012003600000000007000410020000000500300700000600280000040000300500000000000",
+        "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+    };
+
+    static final String SOLVED =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private Corpus() {
+    }
+
+    static String[] byName(String name) {
+        switch (name) {
+            case "easy":
+                return EASY;
+            case "hard":
+                return HARD;
+            case "seventeen":
+                return SEVENTEEN;
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + name);
+        }
+    }
+
+    static int[][] parse(String line) {
+        int[][] grid = new int[9][9];
+        parse(line, grid);
+        return grid;
+    }
+
+    static void parse(String line, int[][] grid) {
+        for (int k = 0; k < 81; k++) {
+            char c = line.charAt(k);
+            grid[k / 9][k % 9] = c >= '1' && c <= '9' ? c - '0' : 0;
+        }
+    }
+
+    static void copy(int[][] from, int[][] to) {
+        for (int i = 0; i < 9; i++) {
+            System.arraycopy(from[i], 0, to[i], 0, 9);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.mauro.sudoku.game;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratorBenchmark {
+    @Param({"EASY", "HARD"})
+    public Difficulty difficulty;
+
+    private final int[][] grid = new int[9][9];
+    private final int[][] solved = Corpus.parse(Corpus.SOLVED);
+    private SplittableRandom random;
+    private SudokuSolver solver;
+    private SolutionCounter counter;
+
+    @Setup
+    public void setup() {
+        random = new SplittableRandom(42);
+        solver = new SudokuSolver();
+        counter = new SolutionCounter();
+    }
+
+    @Benchmark
+    public int[][] solutionGrid() {
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        SudokuGenerator.shuffledSolution(grid, random);
+        return grid;
+    }
+
+    // the diagonal boxes plus search that solutionGrid replaced
+    @Benchmark
+    public int[][] searchedSolutionGrid() {
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        searchedSolution(grid, random, solver);
+        return grid;
+    }
+
+    @Benchmark
+    public int digOut() {
+        Corpus.copy(solved, grid);
+        return SudokuGenerator.digOut(grid, random, difficulty.getMaxBlanks(), counter);
+    }
+
+    @Benchmark
+    public int[][] fullPuzzle() {
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        SudokuGenerator.generateSudoku(grid, difficulty, random, counter);
+        return grid;
+    }
+
+    // The diagonal boxes don't see each other, so they can be filled at random
+    // before the solver completes the grid.
+    private static void searchedSolution(int[][] grid, SplittableRandom r, SudokuSolver solver) {
+        for (int i = 0; i < 9; i += 3) {
+            fillBox(grid, i, i, r);
+        }
+        solver.solve(grid);
+    }
+
+    private static void fillBox(int[][] grid, int k, int l, SplittableRandom r) {
+        for (int i = k; i < k + 3; i++) {
+            for (int j = l; j < l + 3; j++) {
+                int val;
+                do {
+                    val = r.nextInt(9) + 1;
+                } while (!checkedPutIn(grid, i, j, val));
+            }
+        }
+    }
+
+    private static boolean checkedPutIn(int[][] grid, int row, int col, int val) {
+        for (int k = 0; k < 9; k++) {
+            if (grid[row][k] == val || grid[k][col] == val
+                    || grid[3 * (row / 3) + k / 3][3 * (col / 3) + k % 3] == val) {
+                return false;
+            }
+        }
+        grid[row][col] = val;
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mauro.sudoku.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogicBenchmark {
+    private SudokuLogic sudoku;
+    private int cell;
+
+    @Setup
+    public void setup() {
+        sudoku = new SudokuLogic();
+        for (int k = 0; k < 81; k++) {
+            sudoku.put(Corpus.SOLVED.charAt(k) - '0', k / 9, k % 9);
+        }
+    }
+
+    // Rewrites one cell with a different digit and puts the original back.
+    @Benchmark
+    public boolean putDelete() {
+        cell = (cell + 1) % 81;
+        int i = cell / 9, j = cell % 9;
+        int val = Corpus.SOLVED.charAt(cell) - '0';
+        sudoku.delete(i, j);
+        sudoku.put(val % 9 + 1, i, j);
+        return sudoku.put(val, i, j);
+    }
+
+    @Benchmark
+    public boolean isValidSudoku() {
+        return sudoku.isValidSudoku();
+    }
+
+    @Benchmark
+    public boolean wrongDigitExistsIn() {
+        cell = (cell + 1) % 81;
+        return sudoku.wrongDigitExistsIn(cell / 9, cell % 9);
+    }
+
+    @Benchmark
+    public boolean check() {
+        return !sudoku.hasEmptyCells() && sudoku.isValidSudoku();
+    }
+}
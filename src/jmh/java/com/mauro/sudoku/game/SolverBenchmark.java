@@ -0,0 +1,75 @@
+package com.mauro.sudoku.game;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Each invocation goes through the whole corpus once.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"easy", "hard", "seventeen"})
+    public String corpus;
+
+    private int[][][] puzzles;
+    private final int[][] grid = new int[9][9];
+    private SudokuSolver solver;
+    private SolutionCounter counter;
+    private LogicalSolver logical;
+
+    @Setup
+    public void setup() {
+        String[] lines = Corpus.byName(corpus);
+        puzzles = new int[lines.length][][];
+        for (int k = 0; k < lines.length; k++) {
+            puzzles[k] = Corpus.parse(lines[k]);
+        }
+        solver = new SudokuSolver();
+        counter = new SolutionCounter();
+        logical = new LogicalSolver();
+    }
+
+    @Benchmark
+    public void dancingLinksSolve(Blackhole bh) {
+        for (int[][] puzzle : puzzles) {
+            Corpus.copy(puzzle, grid);
+            bh.consume(solver.solve(grid));
+        }
+    }
+
+    @Benchmark
+    public void dancingLinksUnique(Blackhole bh) {
+        for (int[][] puzzle : puzzles) {
+            bh.consume(solver.hasUniqueSolution(puzzle));
+        }
+    }
+
+    @Benchmark
+    public void bitmaskCount(Blackhole bh) {
+        for (int[][] puzzle : puzzles) {
+            bh.consume(counter.count(puzzle, 2));
+        }
+    }
+
+    @Benchmark
+    public void logicalGrade(Blackhole bh) {
+        for (int[][] puzzle : puzzles) {
+            bh.consume(logical.grade(puzzle));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.mauro.sudoku.game;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time from launching the packaged jar to its first painted puzzle, with only the
+// JDK's own CDS archive and with the one the build records for the app. Every launch
+// gets an empty home directory, so it starts a new game rather than resuming one.
+// Needs a display, and `mvn -Pcds package` first; -Dsudoku.jar=... points at another jar.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 15)
+@Fork(1)
+public class StartupBenchmark {
+    private static final String PAINTED = "startup: first puzzle painted after ";
+
+    @Param({"jdk", "app"})
+    public String archive;
+
+    private Path jar;
+    private List<String> command;
+    private Path home;
+
+    @Setup(Level.Trial)
+    public void findJar() throws IOException {
+        if (GraphicsEnvironment.isHeadless()) {
+            throw new IllegalStateException("StartupBenchmark needs a display");
+        }
+        String path = System.getProperty("sudoku.jar");
+        if (path != null) {
+            jar = Paths.get(path);
+        } else {
+            try (DirectoryStream<Path> jars = Files.newDirectoryStream(Paths.get("target"), "SudokuGUI-*.jar")) {
+                for (Path candidate : jars) {
+                    jar = candidate;
+                }
+            }
+        }
+        if (jar == null || !Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No packaged jar, run mvn package first");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void freshHome() throws IOException {
+        command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive.equals("app")) {
+            String name = jar.getFileName().toString();
+            command.add("-XX:SharedArchiveFile=" + jar.resolveSibling(name.substring(0, name.length() - 4) + ".jsa"));
+        }
+        home = Files.createTempDirectory("sudoku-startup");
+        command.add("-Duser.home=" + home);
+        command.add("-Dsudoku.startup=exit");
+        command.add("-jar");
+        command.add(jar.toString());
+    }
+
+    // the game leaves its puzzle pool and autosave behind
+    @TearDown(Level.Invocation)
+    public void deleteHome() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(home)) {
+            // children before their directories
+            files = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            Files.delete(file);
+        }
+    }
+
+    // the launched game's own count, from JVM start; the benchmark time adds process creation
+    @Benchmark
+    public long firstPuzzlePainted() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(PAINTED)) {
+                    return Long.parseLong(line.substring(PAINTED.length(), line.indexOf(" ms")));
+                }
+            }
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+        throw new IllegalStateException("The game exited without painting a puzzle");
+    }
+}
@@ -2,10 +2,15 @@ package com.mauro.sudoku;
 
 import javax.swing.SwingUtilities;
 
+import com.mauro.sudoku.cli.Cli;
 import com.mauro.sudoku.game.SudokuGUI;
 
 public class App {
     public static void main(String[] args) throws Exception {
+        // any argument means a headless run
+        if (args.length > 0) {
+            System.exit(Cli.run(args));
+        }
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
@@ -13,4 +18,4 @@ public class App {
             }
         });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,363 @@
+package com.mauro.sudoku.cli;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+import com.mauro.sudoku.game.BatchValidator;
+import com.mauro.sudoku.game.Canonicalizer;
+import com.mauro.sudoku.game.Difficulty;
+import com.mauro.sudoku.game.FingerprintSet;
+import com.mauro.sudoku.game.Grade;
+import com.mauro.sudoku.game.LogicalSolver;
+import com.mauro.sudoku.game.SudokuGUI;
+import com.mauro.sudoku.game.SudokuGenerator;
+import com.mauro.sudoku.game.SudokuSolver;
+import com.mauro.sudoku.io.LineCodec;
+import com.mauro.sudoku.io.PuzzleFormat;
+import com.mauro.sudoku.io.PuzzleReader;
+import com.mauro.sudoku.io.PuzzleWriter;
+import com.mauro.sudoku.metrics.LatencyHistogram;
+import com.mauro.sudoku.metrics.Metrics;
+import com.mauro.sudoku.server.LoadTest;
+import com.mauro.sudoku.server.PuzzleServer;
+
+// Headless entry point for scripts and puzzle-pack builds. Puzzles stream
+// in and out one at a time; "-" or a missing --in/--out means standard
+// input/output. Results go to the output, the timing report to the error
+// stream, so pipelines only ever see puzzles.
+public final class Cli {
+    private static final String USAGE = String.join(System.lineSeparator(),
+        "usage: sudoku <command> [options] [--metrics]",
+        "  generate --count N [--threads T] [--difficulty easy|medium|hard] [--seed S]",
+        "           [--solutions] [--unique] [--format line|binary] [--out FILE]",
+        "  solve    [--in FILE] [--out FILE]   one 'puzzle,solution' line per puzzle",
+        "  grade    [--in FILE] [--out FILE]   puzzle, rating, hardest technique, difficulty",
+        "  validate [--in FILE] [--out FILE]   puzzle and unique|multiple|invalid",
+        "  dedup    [--in FILE] [--out FILE]   drops puzzles equal to an earlier one up to symmetry",
+        "  check    [--in FILE] [--out FILE]   puzzle and valid|incomplete|invalid, no solving, in batches",
+        "  serve    [--port P] [--pool N]      HTTP service on localhost: /puzzle /validate /solve /hint",
+        "  loadtest [--url URL] [--requests N] [--concurrency C]   p50/p99 latency of GETs to URL",
+        "  warmup                              runs the GUI startup path headless, to train a CDS archive");
+
+    private final PrintStream err;
+    private final InputStream stdin;
+    private final OutputStream stdout;
+    private final Map<String, String> options = new HashMap<>();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private Cli(InputStream stdin, OutputStream stdout, PrintStream err) {
+        this.stdin = stdin;
+        // the output is closed with the writers; the caller's stream must survive that
+        this.stdout = new FilterOutputStream(stdout) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        this.err = err;
+    }
+
+    public static int run(String[] args) {
+        return run(args, System.in, System.out, System.err);
+    }
+
+    // Returns the process exit code: 0 when done, 1 on I/O errors, 2 on bad usage.
+    public static int run(String[] args, InputStream in, OutputStream out, PrintStream err) {
+        Cli cli = new Cli(in, out, err);
+        if (args.length == 0 || !cli.parse(args)) {
+            err.println(USAGE);
+            return 2;
+        }
+        try {
+            long start = System.nanoTime();
+            long count;
+            switch (args[0]) {
+                case "generate":
+                    count = cli.generate();
+                    break;
+                case "solve":
+                case "grade":
+                case "validate":
+                case "dedup":
+                    count = cli.process(args[0]);
+                    break;
+                case "check":
+                    count = cli.check();
+                    break;
+                case "serve":
+                    cli.serve();
+                    return 0;
+                case "loadtest":
+                    cli.loadTest();
+                    return 0;
+                case "warmup":
+                    SudokuGUI.warmUp();
+                    return 0;
+                default:
+                    err.println("unknown command " + args[0]);
+                    err.println(USAGE);
+                    return 2;
+            }
+            cli.report(args[0], count, System.nanoTime() - start);
+            if (cli.options.containsKey("metrics")) {
+                Metrics.global().dump(err);
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        } catch (IOException e) {
+            err.println("sudoku: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (InvocationTargetException e) {
+            err.println("sudoku: " + e.getCause());
+            return 1;
+        }
+    }
+
+    private boolean parse(String[] args) {
+        for (int k = 1; k < args.length; k++) {
+            if (!args[k].startsWith("--")) {
+                err.println("unexpected argument " + args[k]);
+                return false;
+            }
+            String name = args[k].substring(2);
+            if (name.equals("solutions") || name.equals("unique") || name.equals("metrics")) {
+                options.put(name, "true");
+            } else if (k + 1 < args.length) {
+                options.put(name, args[++k]);
+            } else {
+                err.println("missing value for " + args[k]);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int intOption(String name, int fallback) {
+        String value = options.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 0) {
+                throw new IllegalArgumentException("--" + name + " must not be negative");
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " expects a number, got " + value);
+        }
+    }
+
+    private <E extends Enum<E>> E enumOption(String name, Class<E> type, E fallback) {
+        String value = options.get(name);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown value for --" + name + ": " + value);
+        }
+    }
+
+    private Path path(String name) {
+        String value = options.get(name);
+        return value == null || value.equals("-") ? null : Paths.get(value);
+    }
+
+    private long generate() throws IOException {
+        int count = intOption("count", 1);
+        int threads = intOption("threads", Runtime.getRuntime().availableProcessors());
+        Difficulty d = enumOption("difficulty", Difficulty.class, Difficulty.MEDIUM);
+        long seed = options.containsKey("seed") ? Long.parseLong(options.get("seed")) : System.nanoTime();
+        PuzzleFormat format = enumOption("format", PuzzleFormat.class, PuzzleFormat.LINE);
+        boolean withSolutions = options.containsKey("solutions");
+        // skips disguised copies of puzzles already written
+        FingerprintSet seen = options.containsKey("unique") ? new FingerprintSet(count) : null;
+
+        Path out = path("out");
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try (PuzzleWriter writer = out == null
+                ? PuzzleWriter.create(Channels.newChannel(stdout), format, withSolutions)
+                : PuzzleWriter.create(out, format, withSolutions)) {
+            SudokuGenerator.generateSolvedBatch(count, d, seed, (puzzle, solution) -> {
+                try {
+                    if (withSolutions) {
+                        writer.write(puzzle, solution);
+                    } else {
+                        writer.write(puzzle);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, pool, latencies::record, seen);
+            return writer.count();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long process(String command) throws IOException {
+        Path in = path("in"), out = path("out");
+        SudokuSolver solver = new SudokuSolver();
+        LogicalSolver grader = new LogicalSolver();
+        Canonicalizer canon = new Canonicalizer();
+        FingerprintSet seen = new FingerprintSet();
+        int[][] puzzle = new int[9][9], solution = new int[9][9];
+        StringBuilder line = new StringBuilder(2 * LineCodec.LENGTH + 32);
+        try (PuzzleReader reader = in == null ? PuzzleReader.open(Channels.newChannel(stdin)) : PuzzleReader.open(in);
+             Writer writer = new BufferedWriter(out == null
+                 ? new OutputStreamWriter(stdout, StandardCharsets.US_ASCII)
+                 : Files.newBufferedWriter(out, StandardCharsets.US_ASCII), 1 << 16)) {
+            while (reader.next(puzzle)) {
+                line.setLength(0);
+                line.append(LineCodec.toLine(puzzle));
+                long start = System.nanoTime();
+                switch (command) {
+                    case "solve":
+                        for (int i = 0; i < 9; i++) {
+                            System.arraycopy(puzzle[i], 0, solution[i], 0, 9);
+                        }
+                        boolean solved = solver.solve(solution);
+                        latencies.record(System.nanoTime() - start);
+                        if (solved) {
+                            line.append(',').append(LineCodec.toLine(solution));
+                        } else {
+                            // a comment, so the output still reads back as a puzzle file
+                            line.insert(0, "# ").append(" unsolvable");
+                        }
+                        break;
+                    case "grade":
+                        Grade grade = grader.grade(puzzle);
+                        latencies.record(System.nanoTime() - start);
+                        line.append(' ').append(String.format(Locale.ROOT, "%.1f", grade.getRating()))
+                            .append(' ').append(grade.getHardest() == null ? "-" : grade.getHardest().name())
+                            .append(' ').append(Difficulty.forRating(grade.getRating()).name());
+                        break;
+                    case "dedup":
+                        // puzzles without exactly one solution have no canonical form and pass through
+                        boolean fresh = !canon.canonicalize(puzzle, solution)
+                                     || seen.add(Canonicalizer.fingerprintOf(solution));
+                        latencies.record(System.nanoTime() - start);
+                        if (!fresh) {
+                            continue;
+                        }
+                        break;
+                    default:
+                        int solutions = solver.countSolutions(puzzle, 2);
+                        latencies.record(System.nanoTime() - start);
+                        line.append(' ').append(solutions == 1 ? "unique" : solutions == 0 ? "invalid" : "multiple");
+                        break;
+                }
+                writer.append(line).append('\n');
+            }
+            return reader.count();
+        }
+    }
+
+    // Only looks for repeated digits and blanks, so it answers for filled-in
+    // submissions too; puzzles are checked a batch at a time and written in order.
+    private long check() throws IOException {
+        Path in = path("in"), out = path("out");
+        BatchValidator batch = new BatchValidator(4096);
+        String[] lines = new String[batch.getCapacity()];
+        int[][] puzzle = new int[9][9];
+        try (PuzzleReader reader = in == null ? PuzzleReader.open(Channels.newChannel(stdin)) : PuzzleReader.open(in);
+             Writer writer = new BufferedWriter(out == null
+                 ? new OutputStreamWriter(stdout, StandardCharsets.US_ASCII)
+                 : Files.newBufferedWriter(out, StandardCharsets.US_ASCII), 1 << 16)) {
+            boolean more = true;
+            while (more) {
+                while (!batch.isFull() && (more = reader.next(puzzle))) {
+                    lines[batch.add(puzzle)] = LineCodec.toLine(puzzle);
+                }
+                batch.validate();
+                for (int k = 0; k < batch.size(); k++) {
+                    writer.append(lines[k]).append(' ')
+                          .append(batch.verdict(k).name().toLowerCase(Locale.ROOT)).append('\n');
+                }
+                batch.clear();
+            }
+            return reader.count();
+        }
+    }
+
+    // Runs until the process is stopped.
+    private void serve() throws IOException, InterruptedException {
+        int port = intOption("port", 8080);
+        int capacity = intOption("pool", 256);
+        CountDownLatch stopped = new CountDownLatch(1);
+        try (PuzzleServer server = PuzzleServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                                                      capacity)) {
+            err.printf("serving on http://localhost:%d/ (%s threads)%n",
+                       server.getPort(), server.usesVirtualThreads() ? "virtual" : "platform");
+            Runtime.getRuntime().addShutdownHook(new Thread(stopped::countDown));
+            stopped.await();
+        }
+    }
+
+    private void loadTest() throws InterruptedException {
+        URI uri;
+        try {
+            uri = URI.create(options.getOrDefault("url", "http://localhost:8080/puzzle?difficulty=medium"));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("--url is not a URL: " + options.get("url"));
+        }
+        int requests = intOption("requests", 10_000);
+        LoadTest test = LoadTest.run(uri, requests, Math.max(1, intOption("concurrency", requests)));
+        LatencyHistogram took = test.getLatencies();
+        double seconds = test.getNanos() / 1e9;
+        err.printf(Locale.ROOT, "loadtest: %d requests in %.3f s, %.1f requests/s, %d errors%n",
+                   test.getCount(), seconds, seconds == 0 ? 0 : test.getCount() / seconds, test.getErrors());
+        if (took.getCount() > 0) {
+            err.printf(Locale.ROOT, "latency (ms): mean %.2f  p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                       took.getMean() / 1e6, took.valueAt(50) / 1e6, took.valueAt(90) / 1e6,
+                       took.valueAt(99) / 1e6, took.valueAt(99.9) / 1e6, took.getMax() / 1e6);
+        }
+    }
+
+    private void report(String command, long count, long nanos) {
+        double seconds = nanos / 1e9;
+        err.printf(Locale.ROOT, "%s: %d puzzles in %.3f s, %.1f puzzles/s%n",
+                   command, count, seconds, seconds == 0 ? 0 : count / seconds);
+        if (latencies.getCount() > 0) {
+            err.printf(Locale.ROOT, "latency (us): mean %.1f  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                       latencies.getMean() / 1e3, latencies.valueAt(50) / 1e3, latencies.valueAt(90) / 1e3,
+                       latencies.valueAt(99) / 1e3, latencies.valueAt(99.9) / 1e3, latencies.getMax() / 1e3);
+        }
+    }
+}
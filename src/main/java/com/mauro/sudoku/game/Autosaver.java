@@ -0,0 +1,60 @@
+package com.mauro.sudoku.game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Writes snapshots on a background thread. The snapshot bytes are taken on
+// the caller's thread, which is cheap; only the file work happens off it.
+// Saves requested while one is being written collapse into the latest.
+final class Autosaver implements AutoCloseable {
+    private final Path file;
+    private final ExecutorService writer;
+    private final AtomicReference<byte[]> pending;
+
+    Autosaver(Path file) {
+        this.file = file;
+        pending = new AtomicReference<>();
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "autosave");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    void save(SudokuLogic sudoku, long elapsedMillis) {
+        if (pending.getAndSet(GameSnapshot.toBytes(sudoku, elapsedMillis)) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        byte[] bytes = pending.getAndSet(null);
+        if (bytes == null) {
+            return;
+        }
+        try {
+            GameSnapshot.write(bytes, file);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Waits for the last requested save to hit the disk.
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.mauro.sudoku.game;
+
+// The unit checks behind BatchValidator. cells holds boards in tiles of width()
+// boards, each tile cell by cell with the tile's boards side by side: cell k of
+// board b is at (b / width() * 81 + k) * width() + b % width(). boards is a multiple
+// of width(). For every board below it, sets FLAG_CONFLICT in flags[b] if a unit
+// repeats a digit and FLAG_INCOMPLETE if some unit misses one.
+interface BatchKernel {
+    byte FLAG_CONFLICT = 1;
+    byte FLAG_INCOMPLETE = 2;
+
+    // boards per tile
+    int width();
+
+    boolean isVectorized();
+
+    void check(short[] cells, int boards, byte[] flags);
+}
@@ -0,0 +1,118 @@
+package com.mauro.sudoku.game;
+
+// Checks many 9x9 grids at once for repeated digits and blanks. The grids are
+// stored in tiles of a few dozen boards, cell k of every board in a tile next to
+// each other, so one pass over the 27 units checks a whole tile: a vector lane per
+// board when the jar is built with -Pvector and the JVM runs with --add-modules
+// jdk.incubator.vector, plain Java otherwise. A tile is a few kilobytes, so copying
+// a board in stays in cache. Fill with add, call validate, read each verdict. Not
+// thread safe.
+public final class BatchValidator {
+    public enum Verdict {
+        VALID, INCOMPLETE, INVALID
+    }
+
+    private final BatchKernel kernel;
+    private final int capacity;
+    private final int width;
+    private final short[] cells;
+    private final byte[] flags;
+    private int size;
+    private boolean validated;
+
+    public BatchValidator(int capacity) {
+        this(capacity, defaultKernel());
+    }
+
+    BatchValidator(int capacity, BatchKernel kernel) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.kernel = kernel;
+        this.capacity = capacity;
+        width = kernel.width();
+        // whole tiles, the padding after the last board reads as incomplete
+        int boards = (capacity + width - 1) / width * width;
+        cells = new short[SudokuUnits.CELLS * boards];
+        flags = new byte[boards];
+    }
+
+    // The vector kernel if it was built in and the incubator module is there, looked up
+    // by name so nothing touches jdk.incubator.vector classes otherwise.
+    // -Dsudoku.vector=false turns it off.
+    static BatchKernel defaultKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                && !"false".equals(System.getProperty("sudoku.vector"))) {
+            try {
+                return (BatchKernel) Class.forName("com.mauro.sudoku.game.VectorBatchKernel")
+                    .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // fall back below
+            }
+        }
+        return new ScalarBatchKernel();
+    }
+
+    public boolean isVectorized() {
+        return kernel.isVectorized();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    // Copies grid in and returns its index. Digits must be 0 (blank) to 9.
+    public int add(int[][] grid) {
+        if (size == capacity) {
+            throw new IllegalStateException("Batch is full at " + capacity + " boards");
+        }
+        if (grid.length != 9) {
+            throw new IllegalArgumentException("Only 9x9 grids can be batch validated");
+        }
+        int lane = size % width, at = (size - lane) * SudokuUnits.CELLS + lane;
+        for (int i = 0; i < 9; i++) {
+            int[] row = grid[i];
+            for (int j = 0; j < 9; j++) {
+                int val = row[j];
+                if (val < 0 || val > 9) {
+                    throw new IllegalArgumentException("Not a digit of a 9x9 board: " + val);
+                }
+                cells[at + (i * 9 + j) * width] = (short) val;
+            }
+        }
+        validated = false;
+        return size++;
+    }
+
+    // Empties the batch; the old boards get overwritten by the next adds.
+    public void clear() {
+        size = 0;
+        validated = false;
+    }
+
+    public void validate() {
+        kernel.check(cells, (size + width - 1) / width * width, flags);
+        validated = true;
+    }
+
+    public Verdict verdict(int board) {
+        if (board < 0 || board >= size) {
+            throw new IndexOutOfBoundsException("No board " + board + " in a batch of " + size);
+        }
+        if (!validated) {
+            throw new IllegalStateException("Call validate first");
+        }
+        int f = flags[board];
+        return (f & BatchKernel.FLAG_CONFLICT) != 0 ? Verdict.INVALID
+             : (f & BatchKernel.FLAG_INCOMPLETE) != 0 ? Verdict.INCOMPLETE
+             : Verdict.VALID;
+    }
+}
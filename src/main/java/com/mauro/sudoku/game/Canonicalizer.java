@@ -0,0 +1,260 @@
+package com.mauro.sudoku.game;
+
+import java.util.Arrays;
+
+// Maps a 9x9 grid to one representative of everything it can be turned into by
+// relabeling digits, permuting rows within bands and columns within stacks,
+// swapping bands and stacks and transposing, so disguised copies come out
+// identical. A solved grid maps to its minimal-lexicographic form. A puzzle is
+// put through every transformation that takes its solution there, keeping the
+// smallest image, so it has to have exactly one solution. Not thread safe.
+public final class Canonicalizer {
+    // every column order that keeps stacks together: stack order, then the order inside each stack
+    private static final int[][] COLUMN_ORDERS = new int[6 * 6 * 6 * 6][9];
+    private static final int[][] COLUMN_INVERSES = new int[COLUMN_ORDERS.length][9];
+    private static final int[][] PERMUTATIONS_OF_3 = {
+        {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+    private static final long SEED_LOW = 0x243F6A8885A308D3L, SEED_HIGH = 0x13198A2E03707344L;
+
+    static {
+        int n = 0;
+        for (int[] stacks : PERMUTATIONS_OF_3) {
+            for (int[] a : PERMUTATIONS_OF_3) {
+                for (int[] b : PERMUTATIONS_OF_3) {
+                    for (int[] c : PERMUTATIONS_OF_3) {
+                        int[][] inner = {a, b, c};
+                        for (int j = 0; j < 9; j++) {
+                            int col = 3 * stacks[j / 3] + inner[j / 3][j % 3];
+                            COLUMN_ORDERS[n][j] = col;
+                            COLUMN_INVERSES[n][col] = j;
+                        }
+                        n++;
+                    }
+                }
+            }
+        }
+    }
+
+    private final SudokuSolver solver = new SudokuSolver();
+    private final int[][] work = new int[9][9];
+    // the solution and the puzzle as given and transposed, row major
+    private final int[][] grids = new int[2][81], puzzles = new int[2][81];
+    // column of each digit in each row of grids
+    private final int[][][] positions = new int[2][9][10];
+    // the candidates tied on the first two rows: transposed, first row, second row, column order
+    private int[] survivors = new int[64];
+    private int survivorCount;
+    private final int[] bestSecond = new int[9], sigma = new int[9], order = new int[9];
+    // new label of each digit, 0 stays 0
+    private final int[] label = new int[10];
+    // rows as 4 bits per cell, first cell highest
+    private final long[] bestGrid = new long[9], bestPuzzle = new long[9], gridKeys = new long[9],
+                         puzzleKeys = new long[9];
+
+    // Writes the canonical form of grid, a solved grid or a puzzle with a unique
+    // solution, to out. Returns false, leaving out alone, for anything else.
+    public boolean canonicalize(int[][] grid, int[][] out) {
+        if (!solve(grid)) {
+            return false;
+        }
+        canonicalize(grid, work, out);
+        return true;
+    }
+
+    // 64 bits of the canonical form, equal for every disguise of the same puzzle.
+    public long fingerprint(int[][] grid) {
+        if (!solve(grid)) {
+            throw new IllegalArgumentException("Only solved grids and puzzles with one solution have a fingerprint");
+        }
+        canonicalize(grid, work, null);
+        return hash(SEED_LOW);
+    }
+
+    // Like above with 128 bits, low half in out[0], for when collisions must be out of the question.
+    public void fingerprint(int[][] grid, long[] out) {
+        out[0] = fingerprint(grid);
+        out[1] = hash(SEED_HIGH);
+    }
+
+    // For callers that already hold the solution of the puzzle.
+    long fingerprint(int[][] puzzle, int[][] solution) {
+        canonicalize(puzzle, solution, null);
+        return hash(SEED_LOW);
+    }
+
+    // The 64-bit fingerprint of a grid already in canonical form.
+    public static long fingerprintOf(int[][] canonical) {
+        long[] keys = new long[9];
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                keys[i] = keys[i] << 4 | canonical[i][j];
+            }
+        }
+        return hash(keys, SEED_LOW);
+    }
+
+    private boolean solve(int[][] grid) {
+        if (grid.length != 9) {
+            throw new IllegalArgumentException("Only 9x9 grids can be canonicalized");
+        }
+        for (int i = 0; i < 9; i++) {
+            System.arraycopy(grid[i], 0, work[i], 0, 9);
+        }
+        return solver.countSolutions(work, 2) == 1 && solver.solve(work);
+    }
+
+    private void canonicalize(int[][] puzzle, int[][] solution, int[][] out) {
+        for (int k = 0; k < 81; k++) {
+            int i = k / 9, j = k % 9;
+            grids[0][k] = solution[i][j];
+            grids[1][k] = solution[j][i];
+            puzzles[0][k] = puzzle[i][j];
+            puzzles[1][k] = puzzle[j][i];
+        }
+        for (int t = 0; t < 2; t++) {
+            for (int k = 0; k < 81; k++) {
+                positions[t][k / 9][grids[t][k]] = k % 9;
+            }
+        }
+        // Relabeling makes every first row 123456789, so the race starts at the
+        // second row, which depends on the column order only through sigma.
+        survivorCount = 0;
+        bestSecond[0] = Integer.MAX_VALUE;
+        for (int t = 0; t < 2; t++) {
+            int[] g = grids[t];
+            for (int first = 0; first < 9; first++) {
+                for (int second = first / 3 * 3; second < first / 3 * 3 + 3; second++) {
+                    if (second == first) {
+                        continue;
+                    }
+                    for (int x = 0; x < 9; x++) {
+                        sigma[x] = positions[t][first][g[second * 9 + x]];
+                    }
+                    secondRows(t, first, second);
+                }
+            }
+        }
+        Arrays.fill(bestGrid, Long.MAX_VALUE);
+        for (int s = 0; s < survivorCount; s++) {
+            arrange(survivors[s]);
+        }
+        if (out != null) {
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    out[i][j] = (int) (bestPuzzle[i] >>> (4 * (8 - j))) & 0xF;
+                }
+            }
+        }
+    }
+
+    // The second row under column order c is cinv(sigma(c(j))) + 1; keeps the orders that tie
+    // for the smallest. Its first three cells take their labels from the other two stacks, so
+    // once those are ordered, the only order of the first stack worth trying sorts the three.
+    private void secondRows(int t, int first, int second) {
+        for (int stacks = 0; stacks < 6 * 216; stacks += 216) {
+            for (int rest = 0; rest < 36; rest++) {
+                int[] c0 = COLUMN_ORDERS[stacks + rest], cinv0 = COLUMN_INVERSES[stacks + rest];
+                int v0 = cinv0[sigma[c0[0]]], v1 = cinv0[sigma[c0[1]]], v2 = cinv0[sigma[c0[2]]];
+                int n = stacks + sortingOrder(v0, v1, v2) * 36 + rest;
+                int[] c = COLUMN_ORDERS[n], cinv = COLUMN_INVERSES[n];
+                int cmp = 0;
+                for (int j = 0; j < 9 && cmp == 0; j++) {
+                    cmp = Integer.compare(cinv[sigma[c[j]]] + 1, bestSecond[j]);
+                }
+                if (cmp > 0) {
+                    continue;
+                }
+                if (cmp < 0) {
+                    for (int j = 0; j < 9; j++) {
+                        bestSecond[j] = cinv[sigma[c[j]]] + 1;
+                    }
+                    survivorCount = 0;
+                }
+                if (survivorCount == survivors.length) {
+                    survivors = Arrays.copyOf(survivors, survivorCount * 2);
+                }
+                survivors[survivorCount++] = t << 24 | first << 20 | second << 16 | n;
+            }
+        }
+    }
+
+    // index into PERMUTATIONS_OF_3 of the order that visits three distinct values increasingly
+    private static int sortingOrder(int v0, int v1, int v2) {
+        if (v0 < v1) {
+            return v1 < v2 ? 0 : v0 < v2 ? 1 : 4;
+        }
+        return v0 < v2 ? 2 : v1 < v2 ? 3 : 5;
+    }
+
+    // Lays out the rest of the grid for one survivor. With columns and labels fixed,
+    // the smallest layout sorts the rows inside each remaining band and puts the band
+    // with the smallest row first. Ties on the grid go to the smaller puzzle.
+    private void arrange(int survivor) {
+        int t = survivor >>> 24, first = survivor >>> 20 & 0xF, second = survivor >>> 16 & 0xF;
+        int[] g = grids[t], p = puzzles[t], c = COLUMN_ORDERS[survivor & 0xFFFF];
+        for (int j = 0; j < 9; j++) {
+            label[g[first * 9 + c[j]]] = j + 1;
+        }
+        int band = first / 3;
+        order[0] = first;
+        order[1] = second;
+        order[2] = band * 3 + 3 - first % 3 - second % 3;
+        sortBand(g, c, band == 0 ? 1 : 0, 3);
+        sortBand(g, c, band == 2 ? 1 : 2, 6);
+        if (rowKey(g, c, order[3]) > rowKey(g, c, order[6])) {
+            for (int k = 3; k < 6; k++) {
+                int aux = order[k];
+                order[k] = order[k + 3];
+                order[k + 3] = aux;
+            }
+        }
+        for (int i = 0; i < 9; i++) {
+            gridKeys[i] = rowKey(g, c, order[i]);
+            puzzleKeys[i] = rowKey(p, c, order[i]);
+        }
+        int cmp = Arrays.compare(gridKeys, bestGrid);
+        if (cmp == 0) {
+            cmp = Arrays.compare(puzzleKeys, bestPuzzle);
+        }
+        if (cmp < 0) {
+            System.arraycopy(gridKeys, 0, bestGrid, 0, 9);
+            System.arraycopy(puzzleKeys, 0, bestPuzzle, 0, 9);
+        }
+    }
+
+    // the rows of band in increasing order, into order[at] to order[at + 2]
+    private void sortBand(int[] g, int[] c, int band, int at) {
+        for (int k = 0; k < 3; k++) {
+            order[at + k] = band * 3 + k;
+        }
+        for (int a = at + 1; a < at + 3; a++) {
+            for (int b = a; b > at && rowKey(g, c, order[b - 1]) > rowKey(g, c, order[b]); b--) {
+                int aux = order[b];
+                order[b] = order[b - 1];
+                order[b - 1] = aux;
+            }
+        }
+    }
+
+    // a row under the current columns and labels, blanks staying 0
+    private long rowKey(int[] g, int[] c, int row) {
+        long key = 0;
+        for (int j = 0; j < 9; j++) {
+            key = key << 4 | label[g[row * 9 + c[j]]];
+        }
+        return key;
+    }
+
+    private long hash(long seed) {
+        return hash(bestPuzzle, seed);
+    }
+
+    private static long hash(long[] rows, long seed) {
+        long h = seed;
+        for (long key : rows) {
+            h = SudokuGenerator.mix(h ^ key) + 0x9E3779B97F4A7C15L;
+        }
+        return SudokuGenerator.mix(h);
+    }
+}
@@ -0,0 +1,53 @@
+package com.mauro.sudoku.game;
+
+import java.util.SplittableRandom;
+
+// A 9x9 puzzle's difficulty is its LogicalSolver rating, see forRating; the blank
+// counts are where the generator digs to. Other sizes have no grader and go by
+// blank count alone.
+public enum Difficulty {
+    EASY(32, 41),
+    // few puzzles need more than singles before they have ~50 blanks
+    MEDIUM(46, 58),
+    HARD(50, 60);
+
+    private final int minBlanks, maxBlanks;
+
+    private Difficulty(int minBlanks, int maxBlanks) {
+        this.minBlanks = minBlanks;
+        this.maxBlanks = maxBlanks;
+    }
+
+    public int getMinBlanks() {
+        return minBlanks;
+    }
+
+    public int getMaxBlanks() {
+        return maxBlanks;
+    }
+
+    // Bucket for a LogicalSolver rating: singles only are easy, up to pairs
+    // and X-Wings medium, anything harder is hard.
+    public static Difficulty forRating(double rating) {
+        if (rating <= Technique.NAKED_SINGLE.getScore()) {
+            return EASY;
+        }
+        if (rating <= Technique.HIDDEN_PAIR.getScore()) {
+            return MEDIUM;
+        }
+        return HARD;
+    }
+
+    int randomBlanks(SplittableRandom r) {
+        return minBlanks + r.nextInt(maxBlanks - minBlanks + 1);
+    }
+
+    // The same share of blanks on a board of any size; the bounds are for 81 cells.
+    int randomBlanks(SplittableRandom r, int cells) {
+        if (cells == 81) {
+            return randomBlanks(r);
+        }
+        int min = minBlanks * cells / 81, max = maxBlanks * cells / 81;
+        return min + r.nextInt(max - min + 1);
+    }
+}
@@ -0,0 +1,95 @@
+package com.mauro.sudoku.game;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+// Set of 64-bit puzzle fingerprints kept off the heap, 8 bytes a slot with
+// open addressing and linear probing, so tens of millions of them cost neither
+// boxed Longs nor garbage collection work. Grows by doubling at 3/4 full.
+// Not thread safe.
+public final class FingerprintSet {
+    // 2^27 slots make a 1 GiB buffer, about 100 million fingerprints
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private LongBuffer slots;
+    private int mask;
+    private int size;
+    // 0 marks a free slot, so the fingerprint 0 is kept aside
+    private boolean hasZero;
+
+    public FingerprintSet() {
+        this(1024);
+    }
+
+    public FingerprintSet(int expected) {
+        if (expected < 0) {
+            throw new IllegalArgumentException("expected size must not be negative: " + expected);
+        }
+        long wanted = Math.max(16, (long) expected * 4 / 3 + 1);
+        allocate((int) Math.min(MAX_SLOTS, Long.highestOneBit(wanted - 1) << 1));
+    }
+
+    // Adds fingerprint, returning false if it was already there.
+    public boolean add(long fingerprint) {
+        if (fingerprint == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        int slot = find(fingerprint);
+        if (slots.get(slot) != 0) {
+            return false;
+        }
+        if (size + 1 > (mask + 1) / 4 * 3) {
+            grow();
+            slot = find(fingerprint);
+        }
+        slots.put(slot, fingerprint);
+        size++;
+        return true;
+    }
+
+    public boolean contains(long fingerprint) {
+        return fingerprint == 0 ? hasZero : slots.get(find(fingerprint)) != 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // bytes held outside the heap
+    public long capacityBytes() {
+        return 8L * (mask + 1);
+    }
+
+    // the slot holding fingerprint, or the free slot where it would go
+    private int find(long fingerprint) {
+        int slot = (int) (fingerprint ^ fingerprint >>> 32) & mask;
+        long current;
+        while ((current = slots.get(slot)) != 0 && current != fingerprint) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int count) {
+        slots = ByteBuffer.allocateDirect(8 * count).order(ByteOrder.nativeOrder()).asLongBuffer();
+        mask = count - 1;
+    }
+
+    private void grow() {
+        if (mask + 1 >= MAX_SLOTS) {
+            throw new IllegalStateException("Fingerprint set is full at " + size + " entries");
+        }
+        LongBuffer old = slots;
+        allocate(2 * (mask + 1));
+        for (int k = 0; k < old.capacity(); k++) {
+            long fingerprint = old.get(k);
+            if (fingerprint != 0) {
+                slots.put(find(fingerprint), fingerprint);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mauro.sudoku.game;
+
+import jdk.jfr.FlightRecorder;
+
+// Whether to make JDK Flight Recorder events at all. Loading the first event class
+// starts JFR up, about a third of a second, so nothing is made until a recording
+// has been started, at launch (-XX:StartFlightRecording) or later (jcmd JFR.start).
+final class FlightEvents {
+    private FlightEvents() {
+    }
+
+    static boolean enabled() {
+        return FlightRecorder.isInitialized();
+    }
+}
@@ -0,0 +1,185 @@
+package com.mauro.sudoku.game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Binary save format for a game in progress, big endian:
+//   magic "SDKS", version (1 byte), flags (1 byte), box size (1 byte), difficulty (1 byte),
+//   elapsed milliseconds (8), puzzle seed (8, only with flag 16), givens bitset (8 per 64 cells),
+//   answers (1 byte per cell), notes ((size + 7) / 8 bytes per cell), move log.
+// Flags: 1 taking notes, 2 auto notes, 4 auto remove notes, 8 finished, 16 has a puzzle ID.
+// Version 2 files (no puzzle ID) and version 1 files (9x9 only, nibble answers and
+// int move log entries) are still read.
+public final class GameSnapshot {
+    public static final int VERSION = 3;
+
+    private static final byte[] MAGIC = {'S', 'D', 'K', 'S'};
+    private static final int HEADER_LENGTH = 8 + 8;
+    private static final int FLAG_NOTES = 1, FLAG_AUTO_NOTES = 2, FLAG_AUTO_REMOVE = 4, FLAG_DISABLED = 8,
+                             FLAG_PUZZLE_ID = 16;
+
+    private final SudokuLogic sudoku;
+    private final long elapsedMillis;
+
+    private GameSnapshot(SudokuLogic sudoku, long elapsedMillis) {
+        this.sudoku = sudoku;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public SudokuLogic getSudoku() {
+        return sudoku;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public static int sizeOf(SudokuLogic sudoku) {
+        int size = sudoku.getSize(), cells = size * size;
+        return HEADER_LENGTH + (sudoku.getPuzzleId() != null ? 8 : 0) + 8 * ((cells + 63) / 64) + cells * (1 + (size + 7) / 8) + sudoku.moveLogSize();
+    }
+
+    public static void write(SudokuLogic sudoku, long elapsedMillis, ByteBuffer out) {
+        int size = sudoku.getSize(), cells = size * size, noteBytes = (size + 7) / 8;
+        int flags = (sudoku.isTakingNotes() ? FLAG_NOTES : 0)
+                  | (sudoku.isAutoNotes() ? FLAG_AUTO_NOTES : 0)
+                  | (sudoku.isAutoRemovingNotes() ? FLAG_AUTO_REMOVE : 0)
+                  | (sudoku.isDisabled() ? FLAG_DISABLED : 0);
+        PuzzleId id = sudoku.getPuzzleId();
+        if (id != null) {
+            flags |= FLAG_PUZZLE_ID;
+        }
+        out.put(MAGIC).put((byte) VERSION).put((byte) flags).put((byte) sudoku.getBoxSize())
+           .put((byte) (id != null ? id.getDifficulty().ordinal() : 0));
+        out.putLong(elapsedMillis);
+        if (id != null) {
+            out.putLong(id.getSeed());
+        }
+        for (int w = 0; w < (cells + 63) / 64; w++) {
+            out.putLong(sudoku.givenBits(w));
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            out.put((byte) sudoku.answerAt(cell));
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            long notes = sudoku.notesAt(cell);
+            for (int b = noteBytes - 1; b >= 0; b--) {
+                out.put((byte) (notes >>> (8 * b)));
+            }
+        }
+        sudoku.writeMoveLog(out);
+    }
+
+    public static byte[] toBytes(SudokuLogic sudoku, long elapsedMillis) {
+        ByteBuffer out = ByteBuffer.allocate(sizeOf(sudoku));
+        write(sudoku, elapsedMillis, out);
+        return out.array();
+    }
+
+    public static GameSnapshot read(ByteBuffer in) throws IOException {
+        try {
+            for (byte b : MAGIC) {
+                if (in.get() != b) {
+                    throw new IOException("Not a saved game");
+                }
+            }
+            int version = in.get();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported saved game version " + version);
+            }
+            int flags = in.get();
+            int box = in.get();
+            int difficulty = in.get();
+            if (version == 1) {
+                box = 3;
+            }
+            if (box < SudokuGeometry.MIN_BOX || box > SudokuGeometry.MAX_BOX) {
+                throw new IOException("Corrupt saved game");
+            }
+            int size = box * box, cells = size * size;
+            long elapsed = in.getLong();
+            PuzzleId id = null;
+            if (version >= 3 && (flags & FLAG_PUZZLE_ID) != 0) {
+                Difficulty[] all = Difficulty.values();
+                if (difficulty < 0 || difficulty >= all.length) {
+                    throw new IOException("Corrupt saved game");
+                }
+                id = PuzzleId.of(in.getLong(), box, all[difficulty]);
+            }
+            long[] givens = new long[(cells + 63) / 64];
+            for (int w = 0; w < givens.length; w++) {
+                givens[w] = in.getLong();
+            }
+            int[] answers = new int[cells];
+            long[] notes = new long[cells];
+            if (version == 1) {
+                for (int cell = 0; cell < cells; cell += 2) {
+                    int b = in.get();
+                    answers[cell] = (b >>> 4) & 0xF;
+                    if (cell + 1 < cells) {
+                        answers[cell + 1] = b & 0xF;
+                    }
+                }
+                for (int cell = 0; cell < cells; cell++) {
+                    notes[cell] = in.getShort() & 0x1FF;
+                }
+            } else {
+                for (int cell = 0; cell < cells; cell++) {
+                    answers[cell] = in.get() & 0xFF;
+                }
+                for (int cell = 0; cell < cells; cell++) {
+                    long mask = 0;
+                    for (int b = 0; b < (size + 7) / 8; b++) {
+                        mask = mask << 8 | (in.get() & 0xFF);
+                    }
+                    notes[cell] = mask & ((1L << size) - 1);
+                }
+            }
+            for (int cell = 0; cell < cells; cell++) {
+                if (answers[cell] > size) {
+                    throw new IOException("Corrupt saved game");
+                }
+            }
+            SudokuLogic sudoku = new SudokuLogic(box);
+            sudoku.restore(givens, answers, notes, (flags & FLAG_NOTES) != 0,
+                           (flags & FLAG_AUTO_NOTES) != 0, (flags & FLAG_AUTO_REMOVE) != 0,
+                           (flags & FLAG_DISABLED) != 0);
+            sudoku.readMoveLog(in, version == 1);
+            sudoku.setPuzzleId(id);
+            return new GameSnapshot(sudoku, elapsed);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Corrupt saved game", e);
+        }
+    }
+
+    public static void save(SudokuLogic sudoku, long elapsedMillis, Path file) throws IOException {
+        write(toBytes(sudoku, elapsedMillis), file);
+    }
+
+    // Writes next to the target and renames over it, so a crash never leaves half a save behind.
+    static void write(byte[] bytes, Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static GameSnapshot load(Path file) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+}
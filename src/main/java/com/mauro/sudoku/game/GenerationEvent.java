@@ -0,0 +1,44 @@
+package com.mauro.sudoku.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One generated puzzle, for JDK Flight Recorder. The event's own duration is the whole generation.
+@Name("com.mauro.sudoku.Generation")
+@Label("Puzzle Generation")
+@Category({"Sudoku", "Generator"})
+@StackTrace(false)
+final class GenerationEvent extends Event {
+    @Label("Box Size")
+    int box;
+
+    @Label("Difficulty")
+    String difficulty;
+
+    @Label("Blanks")
+    int blanks;
+
+    @Label("Attempts")
+    @Description("Puzzles dug out until one was graded at the difficulty asked for")
+    int attempts;
+
+    @Label("Solution Grid")
+    @Description("Time spent building the solved grid")
+    @Timespan
+    long solutionTime;
+
+    @Label("Dig Out")
+    @Description("Time spent removing givens while keeping the solution unique")
+    @Timespan
+    long digOutTime;
+
+    @Label("Grading")
+    @Description("Time spent rating dug out 9x9 puzzles with the logical solver")
+    @Timespan
+    long gradingTime;
+}
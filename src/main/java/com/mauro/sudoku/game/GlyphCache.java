@@ -0,0 +1,72 @@
+package com.mauro.sudoku.game;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+
+// Digit images scaled once to the current answer and note sizes, in device
+// pixels, so painting the board is a plain blit instead of 800 filtered scales.
+// Compatible BufferedImages get cached in video memory by Java2D on their own,
+// without the content-loss bookkeeping a VolatileImage needs.
+final class GlyphCache {
+    private final BufferedImage[] sources;
+    private final BufferedImage[] answers, notes;
+    private int answerWidth, answerHeight, noteWidth, noteHeight;
+    private double scaleX, scaleY;
+    private GraphicsConfiguration config;
+
+    GlyphCache(BufferedImage[] sources) {
+        this.sources = sources;
+        answers = new BufferedImage[sources.length];
+        notes = new BufferedImage[sources.length];
+    }
+
+    // Rebuilds the glyphs if the sizes or the device changed since the last call.
+    void ensure(Graphics2D g2, int answerWidth, int answerHeight, int noteWidth, int noteHeight) {
+        GraphicsConfiguration gc = g2.getDeviceConfiguration();
+        AffineTransform tx = g2.getTransform();
+        if (gc == config && tx.getScaleX() == scaleX && tx.getScaleY() == scaleY
+                && answerWidth == this.answerWidth && answerHeight == this.answerHeight
+                && noteWidth == this.noteWidth && noteHeight == this.noteHeight) {
+            return;
+        }
+        config = gc;
+        scaleX = tx.getScaleX();
+        scaleY = tx.getScaleY();
+        this.answerWidth = answerWidth;
+        this.answerHeight = answerHeight;
+        this.noteWidth = noteWidth;
+        this.noteHeight = noteHeight;
+        for (int k = 0; k < sources.length; k++) {
+            answers[k] = scale(sources[k], answerWidth, answerHeight);
+            notes[k] = scale(sources[k], noteWidth, noteHeight);
+        }
+    }
+
+    void drawAnswer(Graphics2D g2, int digit, int x, int y) {
+        g2.drawImage(answers[digit - 1], x, y, answerWidth, answerHeight, null);
+    }
+
+    void drawNote(Graphics2D g2, int digit, int x, int y) {
+        g2.drawImage(notes[digit - 1], x, y, noteWidth, noteHeight, null);
+    }
+
+    private BufferedImage scale(BufferedImage source, int width, int height) {
+        int w = Math.max(1, (int) Math.ceil(width * scaleX));
+        int h = Math.max(1, (int) Math.ceil(height * scaleY));
+        BufferedImage image = config != null
+            ? config.createCompatibleImage(w, h, Transparency.TRANSLUCENT)
+            : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, w, h, null);
+        g.dispose();
+        return image;
+    }
+}
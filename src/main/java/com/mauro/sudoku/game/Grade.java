@@ -0,0 +1,45 @@
+package com.mauro.sudoku.game;
+
+public final class Grade {
+    private final Technique hardest;
+    private final int steps;
+    private final boolean solved;
+    private final int[] counts;
+
+    Grade(Technique hardest, int steps, boolean solved, int[] counts) {
+        this.hardest = hardest;
+        this.steps = steps;
+        this.solved = solved;
+        this.counts = counts;
+    }
+
+    // Hardest technique that was needed, GUESSING when the techniques ran out,
+    // or null if the grid was already full.
+    public Technique getHardest() {
+        return hardest;
+    }
+
+    // Score of the hardest technique, 0 for a full grid.
+    public double getRating() {
+        return hardest == null ? 0 : hardest.getScore();
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    // false if the techniques got stuck or the grid turned out to be contradictory
+    public boolean isSolved() {
+        return solved;
+    }
+
+    public int getCount(Technique t) {
+        return counts[t.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f %s (%d steps%s)", getRating(), hardest == null ? "-" : hardest.getLabel(),
+                             steps, solved ? "" : ", unsolved");
+    }
+}
@@ -0,0 +1,23 @@
+package com.mauro.sudoku.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One puzzle graded by LogicalSolver, for JDK Flight Recorder.
+@Name("com.mauro.sudoku.Grading")
+@Label("Puzzle Grading")
+@Category({"Sudoku", "Generator"})
+@StackTrace(false)
+final class GradingEvent extends Event {
+    @Label("Steps")
+    int steps;
+
+    @Label("Hardest Technique")
+    String hardest;
+
+    @Label("Solved")
+    boolean solved;
+}
@@ -0,0 +1,83 @@
+package com.mauro.sudoku.game;
+
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+// The board's cell and box lines drawn once into a transparent image, in
+// device pixels, and blitted over the digits on every paint. Redrawn only
+// when the board size or the device changes.
+final class GridOverlay {
+    private final BasicStroke cellsStroke, gridStroke;
+    private final Rectangle2D.Double gridCell = new Rectangle2D.Double();
+    private final Line2D.Double gridLine = new Line2D.Double();
+    private BufferedImage image;
+    private int width, height;
+    private double scaleX, scaleY;
+    private GraphicsConfiguration config;
+
+    GridOverlay(BasicStroke cellsStroke, BasicStroke gridStroke) {
+        this.cellsStroke = cellsStroke;
+        this.gridStroke = gridStroke;
+    }
+
+    void draw(Graphics2D g2, int width, int height) {
+        GraphicsConfiguration gc = g2.getDeviceConfiguration();
+        AffineTransform tx = g2.getTransform();
+        if (image == null || gc != config || tx.getScaleX() != scaleX || tx.getScaleY() != scaleY
+                || width != this.width || height != this.height) {
+            config = gc;
+            scaleX = tx.getScaleX();
+            scaleY = tx.getScaleY();
+            this.width = width;
+            this.height = height;
+            image = render();
+        }
+        g2.drawImage(image, 0, 0, width, height, null);
+    }
+
+    private BufferedImage render() {
+        int w = Math.max(1, (int) Math.ceil(width * scaleX));
+        int h = Math.max(1, (int) Math.ceil(height * scaleY));
+        BufferedImage overlay = config != null
+            ? config.createCompatibleImage(w, h, Transparency.TRANSLUCENT)
+            : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g2 = overlay.createGraphics();
+        g2.setComposite(AlphaComposite.Clear);
+        g2.fillRect(0, 0, w, h);
+        g2.setComposite(AlphaComposite.SrcOver);
+        g2.scale(scaleX, scaleY);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        double gridScaleX = width / 9.0;
+        double gridScaleY = height / 9.0;
+
+        g2.setColor(Color.WHITE);
+        g2.setStroke(cellsStroke);
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                gridCell.setRect(i * gridScaleX, j * gridScaleY, gridScaleX, gridScaleY);
+                g2.draw(gridCell);
+            }
+        }
+
+        g2.setStroke(gridStroke);
+        g2.setColor(Color.GRAY);
+        for (int k = 3; k < 9; k += 3) {
+            gridLine.setLine(gridScaleX * k, 0, gridScaleX * k, gridScaleY * 9);
+            g2.draw(gridLine);
+            gridLine.setLine(0, gridScaleY * k, gridScaleX * 9, gridScaleY * k);
+            g2.draw(gridLine);
+        }
+        g2.dispose();
+        return overlay;
+    }
+}
@@ -0,0 +1,75 @@
+package com.mauro.sudoku.game;
+
+// The next step towards the solution of a board in play: either a digit that
+// must go in a cell, or candidates that can be ruled out. Cells are numbered
+// row * size + column.
+public final class Hint {
+    private final Technique technique;
+    private final int row, column, digit;
+    private final int[] cells;
+    // candidates ruled out per cell, null for placements
+    private final long[] removed;
+
+    private Hint(Technique technique, int row, int column, int digit, int[] cells, long[] removed) {
+        this.technique = technique;
+        this.row = row;
+        this.column = column;
+        this.digit = digit;
+        this.cells = cells;
+        this.removed = removed;
+    }
+
+    static Hint placement(Technique t, int row, int column, int digit, int[] cells) {
+        return new Hint(t, row, column, digit, cells, null);
+    }
+
+    // Points at the first cell losing candidates and the lowest digit it loses.
+    static Hint elimination(Technique t, int size, long[] removed, int[] cells) {
+        for (int k = 0; k < removed.length; k++) {
+            if (removed[k] != 0) {
+                return new Hint(t, k / size, k % size, Long.numberOfTrailingZeros(removed[k]) + 1, cells, removed);
+            }
+        }
+        throw new IllegalArgumentException("an elimination has to remove something");
+    }
+
+    public Technique getTechnique() {
+        return technique;
+    }
+
+    // true when getDigit goes in (getRow, getColumn), false when candidates are ruled out
+    public boolean isPlacement() {
+        return removed == null;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getDigit() {
+        return digit;
+    }
+
+    // the cells the deduction is based on
+    public int[] getCells() {
+        return cells.clone();
+    }
+
+    // Bit d - 1 is set for every digit d the hint rules out in cell k.
+    public long getRemoved(int k) {
+        return removed == null ? 0 : removed[k];
+    }
+
+    @Override
+    public String toString() {
+        String target = "r" + (row + 1) + "c" + (column + 1);
+        if (isPlacement()) {
+            return technique.getLabel() + ": " + digit + " goes in " + target;
+        }
+        return technique.getLabel() + ": " + digit + " can be ruled out in " + target;
+    }
+}
@@ -0,0 +1,551 @@
+package com.mauro.sudoku.game;
+
+import static com.mauro.sudoku.game.SudokuUnits.ALL_DIGITS;
+import static com.mauro.sudoku.game.SudokuUnits.CELLS;
+import static com.mauro.sudoku.game.SudokuUnits.PEERS;
+import static com.mauro.sudoku.game.SudokuUnits.SEES;
+import static com.mauro.sudoku.game.SudokuUnits.SIZE;
+import static com.mauro.sudoku.game.SudokuUnits.UNITS;
+import static com.mauro.sudoku.game.SudokuUnits.UNIT_CELLS;
+
+import java.util.Arrays;
+
+import com.mauro.sudoku.metrics.Metrics;
+
+// Solves the way a person would, one technique application at a time, always
+// falling back to the easiest technique that still makes progress. Candidates
+// are 9-bit masks, one per cell. Not thread safe.
+public final class LogicalSolver {
+    private static final Technique[] TECHNIQUES = Technique.values();
+    private static final Metrics.Timer GRADE_TIME = Metrics.global().timer("grader.grade");
+
+    private final int[] values = new int[CELLS];
+    private final int[] cands = new int[CELLS];
+    private final int[] list = new int[SIZE];
+    private final int[] positions = new int[SIZE];
+    private int empty;
+    private boolean broken;
+    // the cells the last step was based on, kept for hints
+    private final int[] involved = new int[CELLS];
+    private int involvedCount;
+    private final int[] before = new int[CELLS];
+
+    public Grade grade(int[][] grid) {
+        GradingEvent event = FlightEvents.enabled() ? new GradingEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        load(grid);
+        int[] counts = new int[TECHNIQUES.length];
+        Technique hardest = null;
+        int steps = 0;
+        while (empty > 0 && !broken) {
+            Technique t = step();
+            if (broken) {
+                break;
+            }
+            if (t == null) {
+                t = Technique.GUESSING;
+            }
+            counts[t.ordinal()]++;
+            if (hardest == null || t.compareTo(hardest) > 0) {
+                hardest = t;
+            }
+            if (t == Technique.GUESSING) {
+                break;
+            }
+            steps++;
+        }
+        GRADE_TIME.recordSince(start);
+        if (event != null && event.shouldCommit()) {
+            event.steps = steps;
+            event.hardest = hardest == null ? null : hardest.name();
+            event.solved = empty == 0 && !broken;
+            event.commit();
+        }
+        return new Grade(hardest, steps, empty == 0 && !broken, counts);
+    }
+
+    // Copies the (possibly partial) result of the last grade into grid.
+    void copyValues(int[][] grid) {
+        for (int k = 0; k < CELLS; k++) {
+            grid[k / SIZE][k % SIZE] = values[k];
+        }
+    }
+
+    void load(int[][] grid) {
+        empty = 0;
+        broken = false;
+        for (int k = 0; k < CELLS; k++) {
+            values[k] = grid[k / SIZE][k % SIZE];
+            cands[k] = values[k] == 0 ? ALL_DIGITS : 0;
+            if (values[k] == 0) {
+                empty++;
+            }
+        }
+        for (int k = 0; k < CELLS; k++) {
+            if (values[k] != 0) {
+                removeFromPeers(k, values[k]);
+            }
+        }
+    }
+
+    // Loads a board in play: its answers and the candidates each empty cell has left.
+    void load(int[] answers, int[] candidates) {
+        empty = 0;
+        broken = false;
+        for (int k = 0; k < CELLS; k++) {
+            values[k] = answers[k];
+            cands[k] = answers[k] == 0 ? candidates[k] : 0;
+            if (values[k] == 0) {
+                empty++;
+                broken |= cands[k] == 0;
+            }
+        }
+    }
+
+    // Takes the easiest step on the loaded board and describes it, or returns null
+    // when none of the techniques applies or the board turns out contradictory.
+    Hint hint() {
+        if (broken) {
+            return null;
+        }
+        System.arraycopy(cands, 0, before, 0, CELLS);
+        Technique t = step();
+        if (t == null || broken) {
+            return null;
+        }
+        int[] cells = Arrays.copyOf(involved, involvedCount);
+        for (int k = 0; k < CELLS; k++) {
+            if (before[k] != 0 && values[k] != 0) {
+                return Hint.placement(t, k / SIZE, k % SIZE, values[k], cells);
+            }
+        }
+        long[] removed = new long[CELLS];
+        for (int k = 0; k < CELLS; k++) {
+            removed[k] = before[k] & ~cands[k];
+        }
+        return Hint.elimination(t, SIZE, removed, cells);
+    }
+
+    // Applies the easiest technique that makes progress and returns it, or
+    // returns null when none does.
+    Technique step() {
+        involvedCount = 0;
+        if (hiddenSingle()) {
+            return Technique.HIDDEN_SINGLE;
+        }
+        if (nakedSingle()) {
+            return Technique.NAKED_SINGLE;
+        }
+        if (pointing()) {
+            return Technique.POINTING;
+        }
+        if (claiming()) {
+            return Technique.CLAIMING;
+        }
+        if (nakedSubset(2)) {
+            return Technique.NAKED_PAIR;
+        }
+        if (fish(2)) {
+            return Technique.X_WING;
+        }
+        if (hiddenSubset(2)) {
+            return Technique.HIDDEN_PAIR;
+        }
+        if (nakedSubset(3)) {
+            return Technique.NAKED_TRIPLE;
+        }
+        if (fish(3)) {
+            return Technique.SWORDFISH;
+        }
+        if (hiddenSubset(3)) {
+            return Technique.HIDDEN_TRIPLE;
+        }
+        if (xyWing()) {
+            return Technique.XY_WING;
+        }
+        if (nakedSubset(4)) {
+            return Technique.NAKED_QUAD;
+        }
+        if (fish(4)) {
+            return Technique.JELLYFISH;
+        }
+        if (hiddenSubset(4)) {
+            return Technique.HIDDEN_QUAD;
+        }
+        return null;
+    }
+
+    private void place(int cell, int val) {
+        values[cell] = val;
+        cands[cell] = 0;
+        empty--;
+        removeFromPeers(cell, val);
+    }
+
+    private void removeFromPeers(int cell, int val) {
+        int bit = 1 << (val - 1);
+        for (int p : PEERS[cell]) {
+            if (values[p] == val) {
+                broken = true;
+            } else if (values[p] == 0) {
+                eliminate(p, bit);
+            }
+        }
+    }
+
+    private boolean eliminate(int cell, int mask) {
+        if ((cands[cell] & mask) == 0) {
+            return false;
+        }
+        cands[cell] &= ~mask;
+        if (cands[cell] == 0) {
+            broken = true;
+        }
+        return true;
+    }
+
+    private boolean hiddenSingle() {
+        for (int u = 0; u < UNITS; u++) {
+            int once = 0, twice = 0, placed = 0;
+            for (int cell : UNIT_CELLS[u]) {
+                int m = cands[cell];
+                twice |= once & m;
+                once |= m;
+                if (values[cell] != 0) {
+                    placed |= 1 << (values[cell] - 1);
+                }
+            }
+            if ((once | placed) != ALL_DIGITS) {
+                broken = true;
+                return false;
+            }
+            int single = once & ~twice;
+            if (single == 0) {
+                continue;
+            }
+            int bit = single & -single;
+            for (int cell : UNIT_CELLS[u]) {
+                if ((cands[cell] & bit) != 0) {
+                    for (int other : UNIT_CELLS[u]) {
+                        involve(other);
+                    }
+                    place(cell, Integer.numberOfTrailingZeros(bit) + 1);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedSingle() {
+        for (int k = 0; k < CELLS; k++) {
+            int m = cands[k];
+            if (m != 0 && (m & (m - 1)) == 0) {
+                involve(k);
+                place(k, Integer.numberOfTrailingZeros(m) + 1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A digit confined to one row or column of a box can go nowhere else on that line.
+    private boolean pointing() {
+        for (int b = 0; b < SIZE; b++) {
+            int[] box = UNIT_CELLS[2 * SIZE + b];
+            for (int bit = 1; bit <= ALL_DIGITS; bit <<= 1) {
+                int rows = 0, cols = 0;
+                for (int cell : box) {
+                    if ((cands[cell] & bit) != 0) {
+                        rows |= 1 << (cell / SIZE);
+                        cols |= 1 << (cell % SIZE);
+                    }
+                }
+                boolean changed = false;
+                if (Integer.bitCount(rows) == 1) {
+                    int row = Integer.numberOfTrailingZeros(rows);
+                    for (int cell : UNIT_CELLS[row]) {
+                        if ((cell % SIZE) / 3 != b % 3) {
+                            changed |= eliminate(cell, bit);
+                        }
+                    }
+                }
+                if (Integer.bitCount(cols) == 1) {
+                    int col = Integer.numberOfTrailingZeros(cols);
+                    for (int cell : UNIT_CELLS[SIZE + col]) {
+                        if ((cell / SIZE) / 3 != b / 3) {
+                            changed |= eliminate(cell, bit);
+                        }
+                    }
+                }
+                if (changed) {
+                    involveAll(box, bit);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // A digit confined to one box within a line can go nowhere else in that box.
+    private boolean claiming() {
+        for (int u = 0; u < 2 * SIZE; u++) {
+            for (int bit = 1; bit <= ALL_DIGITS; bit <<= 1) {
+                int boxes = 0;
+                for (int cell : UNIT_CELLS[u]) {
+                    if ((cands[cell] & bit) != 0) {
+                        boxes |= 1 << boxOf(cell);
+                    }
+                }
+                if (Integer.bitCount(boxes) != 1) {
+                    continue;
+                }
+                boolean changed = false;
+                for (int cell : UNIT_CELLS[2 * SIZE + Integer.numberOfTrailingZeros(boxes)]) {
+                    boolean onLine = u < SIZE ? cell / SIZE == u : cell % SIZE == u - SIZE;
+                    if (!onLine) {
+                        changed |= eliminate(cell, bit);
+                    }
+                }
+                if (changed) {
+                    involveAll(UNIT_CELLS[u], bit);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // n cells of a unit holding only n candidates between them.
+    private boolean nakedSubset(int n) {
+        for (int u = 0; u < UNITS; u++) {
+            int count = 0;
+            for (int cell : UNIT_CELLS[u]) {
+                int size = Integer.bitCount(cands[cell]);
+                if (size >= 2 && size <= n) {
+                    list[count++] = cell;
+                }
+            }
+            if (count >= n && nakedSearch(u, count, 0, n, 0, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedSearch(int u, int count, int start, int left, int union, int chosen) {
+        if (left == 0) {
+            if (Integer.bitCount(union) != Integer.bitCount(chosen)) {
+                return false;
+            }
+            boolean changed = false;
+            for (int cell : UNIT_CELLS[u]) {
+                if (!isChosen(cell, count, chosen)) {
+                    changed |= eliminate(cell, union);
+                }
+            }
+            if (changed) {
+                for (int k = 0; k < count; k++) {
+                    if ((chosen & (1 << k)) != 0) {
+                        involve(list[k]);
+                    }
+                }
+            }
+            return changed;
+        }
+        for (int k = start; k <= count - left; k++) {
+            int next = union | cands[list[k]];
+            if (Integer.bitCount(next) <= Integer.bitCount(chosen) + left
+                    && nakedSearch(u, count, k + 1, left - 1, next, chosen | (1 << k))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isChosen(int cell, int count, int chosen) {
+        for (int k = 0; k < count; k++) {
+            if ((chosen & (1 << k)) != 0 && list[k] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // n digits of a unit that fit in only n cells: those cells hold nothing else.
+    private boolean hiddenSubset(int n) {
+        for (int u = 0; u < UNITS; u++) {
+            int[] cells = UNIT_CELLS[u];
+            int count = 0;
+            for (int d = 0; d < SIZE; d++) {
+                int pos = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    if ((cands[cells[k]] & (1 << d)) != 0) {
+                        pos |= 1 << k;
+                    }
+                }
+                int size = Integer.bitCount(pos);
+                if (size >= 2 && size <= n) {
+                    list[count] = d;
+                    positions[count++] = pos;
+                }
+            }
+            if (count >= n && hiddenSearch(cells, count, 0, n, 0, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenSearch(int[] cells, int count, int start, int left, int union, int digits) {
+        if (left == 0) {
+            if (Integer.bitCount(union) != Integer.bitCount(digits)) {
+                return false;
+            }
+            boolean changed = false;
+            for (int k = 0; k < SIZE; k++) {
+                if ((union & (1 << k)) != 0) {
+                    changed |= eliminate(cells[k], ~digits & ALL_DIGITS);
+                }
+            }
+            if (changed) {
+                for (int k = 0; k < SIZE; k++) {
+                    if ((union & (1 << k)) != 0) {
+                        involve(cells[k]);
+                    }
+                }
+            }
+            return changed;
+        }
+        for (int k = start; k <= count - left; k++) {
+            int next = union | positions[k];
+            if (Integer.bitCount(next) <= Integer.bitCount(digits) + left
+                    && hiddenSearch(cells, count, k + 1, left - 1, next, digits | (1 << list[k]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // X-Wing, Swordfish and Jellyfish: a digit confined to n cross lines within n base lines.
+    private boolean fish(int n) {
+        for (int bit = 1; bit <= ALL_DIGITS; bit <<= 1) {
+            for (int base = 0; base < 2; base++) {
+                int count = 0;
+                for (int line = 0; line < SIZE; line++) {
+                    int pos = 0;
+                    for (int k = 0; k < SIZE; k++) {
+                        int cell = base == 0 ? line * SIZE + k : k * SIZE + line;
+                        if ((cands[cell] & bit) != 0) {
+                            pos |= 1 << k;
+                        }
+                    }
+                    int size = Integer.bitCount(pos);
+                    if (size >= 2 && size <= n) {
+                        list[count] = line;
+                        positions[count++] = pos;
+                    }
+                }
+                if (count >= n && fishSearch(bit, base, count, 0, n, 0, 0)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean fishSearch(int bit, int base, int count, int start, int left, int cover, int lines) {
+        if (left == 0) {
+            if (Integer.bitCount(cover) != Integer.bitCount(lines)) {
+                return false;
+            }
+            boolean changed = false;
+            for (int k = 0; k < SIZE; k++) {
+                if ((cover & (1 << k)) == 0) {
+                    continue;
+                }
+                for (int line = 0; line < SIZE; line++) {
+                    if ((lines & (1 << line)) == 0) {
+                        changed |= eliminate(base == 0 ? line * SIZE + k : k * SIZE + line, bit);
+                    }
+                }
+            }
+            if (changed) {
+                for (int line = 0; line < SIZE; line++) {
+                    for (int k = 0; k < SIZE; k++) {
+                        int cell = base == 0 ? line * SIZE + k : k * SIZE + line;
+                        if ((lines & (1 << line)) != 0 && (cands[cell] & bit) != 0) {
+                            involve(cell);
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+        for (int k = start; k <= count - left; k++) {
+            int next = cover | positions[k];
+            if (Integer.bitCount(next) <= Integer.bitCount(lines) + left
+                    && fishSearch(bit, base, count, k + 1, left - 1, next, lines | (1 << list[k]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Pivot {a,b} seeing pincers {a,c} and {b,c}: c goes from every cell seeing both pincers.
+    private boolean xyWing() {
+        for (int pivot = 0; pivot < CELLS; pivot++) {
+            int pm = cands[pivot];
+            if (Integer.bitCount(pm) != 2) {
+                continue;
+            }
+            for (int first : PEERS[pivot]) {
+                int fm = cands[first];
+                int shared = fm & pm;
+                if (Integer.bitCount(fm) != 2 || Integer.bitCount(shared) != 1) {
+                    continue;
+                }
+                int c = fm & ~shared;
+                int wanted = (pm & ~shared) | c;
+                for (int second : PEERS[pivot]) {
+                    if (cands[second] != wanted || second == first) {
+                        continue;
+                    }
+                    boolean changed = false;
+                    for (int cell : PEERS[first]) {
+                        if (cell != pivot && cell != second && SEES[second][cell]) {
+                            changed |= eliminate(cell, c);
+                        }
+                    }
+                    if (changed) {
+                        involve(pivot);
+                        involve(first);
+                        involve(second);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void involve(int cell) {
+        involved[involvedCount++] = cell;
+    }
+
+    // the cells among unit still holding any of mask
+    private void involveAll(int[] unit, int mask) {
+        for (int cell : unit) {
+            if ((cands[cell] & mask) != 0) {
+                involve(cell);
+            }
+        }
+    }
+
+    private static int boxOf(int cell) {
+        return (cell / SIZE / 3) * 3 + (cell % SIZE) / 3;
+    }
+}
@@ -0,0 +1,181 @@
+package com.mauro.sudoku.game;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+// Undo/redo history stored as packed longs in a growable ring, one entry per
+// cell change. A player move that changes several cells (an answer plus the
+// notes an assist cleared) is a run of entries where every entry but the
+// first has the LINKED bit set. Once MAX_ENTRIES is reached the oldest
+// entries are overwritten.
+//
+// Entry layout, low bits first: cell (10), kind (1), old value (25), new value (25), linked (1),
+// enough for a 25x25 board. For answers the values are the digit, for notes they are the note mask.
+final class MoveLog {
+    static final int KIND_ANSWER = 0;
+    static final int KIND_NOTES = 1;
+
+    private static final int MAX_ENTRIES = 1 << 20;
+    private static final int CELL_BITS = 10, VALUE_BITS = 25;
+    private static final long VALUE_MASK = (1L << VALUE_BITS) - 1;
+    private static final int OLD_SHIFT = CELL_BITS + 1, NEW_SHIFT = OLD_SHIFT + VALUE_BITS;
+    private static final long LINKED = 1L << (NEW_SHIFT + VALUE_BITS);
+
+    private long[] entries;
+    private int head, length, applied;
+    private boolean moveStarted;
+
+    MoveLog() {
+        entries = new long[64];
+    }
+
+    // a move changes at most the answer and the notes of every cell
+    static int maxMoveEntries(int cells) {
+        return 2 * cells;
+    }
+
+    static int cellOf(long entry) {
+        return (int) entry & ((1 << CELL_BITS) - 1);
+    }
+
+    static int kindOf(long entry) {
+        return (int) (entry >>> CELL_BITS) & 1;
+    }
+
+    static long oldValueOf(long entry) {
+        return (entry >>> OLD_SHIFT) & VALUE_MASK;
+    }
+
+    static long newValueOf(long entry) {
+        return (entry >>> NEW_SHIFT) & VALUE_MASK;
+    }
+
+    // The next recorded change starts a new move.
+    void beginMove() {
+        moveStarted = false;
+    }
+
+    void record(int cell, int kind, long oldValue, long newValue) {
+        long entry = cell | (long) kind << CELL_BITS | oldValue << OLD_SHIFT | newValue << NEW_SHIFT
+                   | (moveStarted ? LINKED : 0);
+        moveStarted = true;
+        length = applied;
+        if (length == entries.length) {
+            if (entries.length < MAX_ENTRIES) {
+                grow();
+            } else {
+                head = (head + 1) % entries.length;
+                length--;
+                applied--;
+            }
+        }
+        entries[(head + length) % entries.length] = entry;
+        length++;
+        applied++;
+    }
+
+    boolean canUndo() {
+        return applied > 0;
+    }
+
+    boolean canRedo() {
+        return applied < length;
+    }
+
+    // Entries of the last move, newest first; the caller reverts each of them. Returns how many there are.
+    int undo(long[] out) {
+        int n = 0;
+        while (applied > 0) {
+            long entry = entries[(head + --applied) % entries.length];
+            out[n++] = entry;
+            if ((entry & LINKED) == 0) {
+                break;
+            }
+        }
+        moveStarted = false;
+        return n;
+    }
+
+    // Entries of the next undone move, oldest first; the caller reapplies each of them.
+    int redo(long[] out) {
+        int n = 0;
+        while (applied < length) {
+            long entry = entries[(head + applied) % entries.length];
+            if (n > 0 && (entry & LINKED) == 0) {
+                break;
+            }
+            out[n++] = entry;
+            applied++;
+        }
+        moveStarted = false;
+        return n;
+    }
+
+    int size() {
+        return length;
+    }
+
+    int position() {
+        return applied;
+    }
+
+    int serializedSize() {
+        return 8 + 8 * length;
+    }
+
+    // length, undo position, then the entries oldest first
+    void write(ByteBuffer out) {
+        out.putInt(length).putInt(applied);
+        for (int k = 0; k < length; k++) {
+            out.putLong(entries[(head + k) % entries.length]);
+        }
+    }
+
+    // The first snapshot version packed 9x9 entries into ints: cell (7), kind (1),
+    // old value (9), new value (9), linked (1). Those are widened on the way in.
+    // Every entry has to fit a size x size board, undo would write it straight in.
+    static MoveLog read(ByteBuffer in, boolean narrow, int size) {
+        int length = in.getInt();
+        int applied = in.getInt();
+        if (length < 0 || length > MAX_ENTRIES || applied < 0 || applied > length) {
+            throw new IllegalArgumentException("Corrupt move log");
+        }
+        if (in.remaining() < (narrow ? 4L : 8L) * length) {
+            throw new BufferUnderflowException();
+        }
+        MoveLog log = new MoveLog();
+        log.entries = new long[Math.min(MAX_ENTRIES, Math.max(64, Integer.highestOneBit(Math.max(1, length)) << 1))];
+        for (int k = 0; k < length; k++) {
+            if (narrow) {
+                int entry = in.getInt();
+                log.entries[k] = (entry & 0x7F) | (long) ((entry >>> 7) & 1) << CELL_BITS
+                               | (long) ((entry >>> 8) & 0x1FF) << OLD_SHIFT
+                               | (long) ((entry >>> 17) & 0x1FF) << NEW_SHIFT
+                               | ((entry & (1 << 26)) != 0 ? LINKED : 0);
+            } else {
+                log.entries[k] = in.getLong();
+            }
+            if (!fits(log.entries[k], size)) {
+                throw new IllegalArgumentException("Corrupt move log");
+            }
+        }
+        log.length = length;
+        log.applied = applied;
+        return log;
+    }
+
+    private static boolean fits(long entry, int size) {
+        long limit = kindOf(entry) == KIND_ANSWER ? size : (1L << size) - 1;
+        return (entry & ~(LINKED | LINKED - 1)) == 0 && cellOf(entry) < size * size
+            && oldValueOf(entry) <= limit && newValueOf(entry) <= limit;
+    }
+
+    private void grow() {
+        long[] bigger = new long[Math.min(MAX_ENTRIES, entries.length * 2)];
+        for (int k = 0; k < length; k++) {
+            bigger[k] = entries[(head + k) % entries.length];
+        }
+        entries = bigger;
+        head = 0;
+    }
+}
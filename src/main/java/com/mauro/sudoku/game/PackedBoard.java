@@ -0,0 +1,45 @@
+package com.mauro.sudoku.game;
+
+// Answers and note masks of every cell packed into a single long[]. Fields
+// never straddle two words, so each access is one load plus a shift and a mask.
+final class PackedBoard {
+    private final int valueBits, maskBits;
+    private final int valuesPerWord, masksPerWord;
+    private final int maskOffset;
+    private final long valueMask, noteMask;
+    private final long[] words;
+
+    // maskBits may go up to 63
+    PackedBoard(int cells, int valueBits, int maskBits) {
+        this.valueBits = valueBits;
+        this.maskBits = maskBits;
+        valuesPerWord = 64 / valueBits;
+        masksPerWord = 64 / maskBits;
+        valueMask = (1L << valueBits) - 1;
+        noteMask = (1L << maskBits) - 1;
+        maskOffset = (cells + valuesPerWord - 1) / valuesPerWord;
+        words = new long[maskOffset + (cells + masksPerWord - 1) / masksPerWord];
+    }
+
+    int value(int cell) {
+        long word = words[cell / valuesPerWord];
+        return (int) ((word >>> ((cell % valuesPerWord) * valueBits)) & valueMask);
+    }
+
+    void setValue(int cell, int val) {
+        int idx = cell / valuesPerWord;
+        int shift = (cell % valuesPerWord) * valueBits;
+        words[idx] = (words[idx] & ~(valueMask << shift)) | ((val & valueMask) << shift);
+    }
+
+    long notes(int cell) {
+        long word = words[maskOffset + cell / masksPerWord];
+        return (word >>> ((cell % masksPerWord) * maskBits)) & noteMask;
+    }
+
+    void setNotes(int cell, long mask) {
+        int idx = maskOffset + cell / masksPerWord;
+        int shift = (cell % masksPerWord) * maskBits;
+        words[idx] = (words[idx] & ~(noteMask << shift)) | ((mask & noteMask) << shift);
+    }
+}
@@ -0,0 +1,23 @@
+package com.mauro.sudoku.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One paint of the board panel, for JDK Flight Recorder.
+@Name("com.mauro.sudoku.Paint")
+@Label("Board Paint")
+@Category({"Sudoku", "GUI"})
+@StackTrace(false)
+final class PaintEvent extends Event {
+    @Label("Cells Drawn")
+    int cells;
+
+    @Label("Clip Width")
+    int width;
+
+    @Label("Clip Height")
+    int height;
+}
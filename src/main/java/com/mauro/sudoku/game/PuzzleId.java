@@ -0,0 +1,107 @@
+package com.mauro.sudoku.game;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// Everything needed to regenerate a puzzle: the generator is fully
+// determined by (seed, box size, difficulty), so 8 bytes and a couple of
+// bits stand in for the whole board. Written as size, difficulty initial
+// and the seed in hex, e.g. "9M-3A7F00C2D41E9B65".
+public final class PuzzleId {
+    private static final long DAILY_SALT = 0x5D0C0DA11EL;
+    private static final SplittableRandom SEEDS = new SplittableRandom();
+
+    private final long seed;
+    private final int box;
+    private final Difficulty difficulty;
+
+    private PuzzleId(long seed, int box, Difficulty difficulty) {
+        SudokuGeometry.of(box);
+        if (difficulty == null) {
+            throw new IllegalArgumentException("difficulty must not be null");
+        }
+        this.seed = seed;
+        this.box = box;
+        this.difficulty = difficulty;
+    }
+
+    public static PuzzleId of(long seed, Difficulty d) {
+        return new PuzzleId(seed, 3, d);
+    }
+
+    public static PuzzleId of(long seed, int box, Difficulty d) {
+        return new PuzzleId(seed, box, d);
+    }
+
+    // A fresh seed; the only place where generation draws on unseeded randomness.
+    public static PuzzleId random(int box, Difficulty d) {
+        return new PuzzleId(freshSeed(), box, d);
+    }
+
+    static long freshSeed() {
+        synchronized (SEEDS) {
+            return SEEDS.nextLong();
+        }
+    }
+
+    // The same 9x9 puzzle for everybody on a given day.
+    public static PuzzleId daily(LocalDate date, Difficulty d) {
+        return new PuzzleId(SudokuGenerator.mix(date.toEpochDay() ^ DAILY_SALT), 3, d);
+    }
+
+    public static PuzzleId parse(String text) {
+        String s = text.trim().toUpperCase(Locale.ROOT);
+        int dash = s.indexOf('-');
+        if (dash < 2 || s.length() - dash - 1 != 16) {
+            throw new IllegalArgumentException("Not a puzzle ID: " + text);
+        }
+        Difficulty d = null;
+        for (Difficulty candidate : Difficulty.values()) {
+            if (candidate.name().charAt(0) == s.charAt(dash - 1)) {
+                d = candidate;
+            }
+        }
+        try {
+            int size = Integer.parseInt(s.substring(0, dash - 1));
+            int box = (int) Math.round(Math.sqrt(size));
+            if (d == null || box * box != size || box < SudokuGeometry.MIN_BOX || box > SudokuGeometry.MAX_BOX) {
+                throw new IllegalArgumentException("Not a puzzle ID: " + text);
+            }
+            return new PuzzleId(Long.parseUnsignedLong(s.substring(dash + 1), 16), box, d);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not a puzzle ID: " + text, e);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getBoxSize() {
+        return box;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PuzzleId)) {
+            return false;
+        }
+        PuzzleId other = (PuzzleId) o;
+        return seed == other.seed && box == other.box && difficulty == other.difficulty;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(seed) * 31 + box * 7 + difficulty.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d%c-%016X", box * box, difficulty.name().charAt(0), seed);
+    }
+}
@@ -0,0 +1,265 @@
+package com.mauro.sudoku.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Bounded stock of ready-made puzzles for every difficulty, topped up by a
+// background thread, so starting a game never waits for the generator.
+// When given a directory the stock is loaded from and saved to it; only the
+// seeds are stored, and the boards are regenerated in the background on load.
+// Such a pool starts topping up once load has been called.
+public final class PuzzlePool implements AutoCloseable {
+    private static final byte[] MAGIC = {'S', 'D', 'K', 'P'};
+
+    private final int capacity;
+    private final Path directory;
+    private final EnumMap<Difficulty, ArrayBlockingQueue<Pooled>> queues;
+    private final ExecutorService refiller;
+    private final AtomicBoolean refillScheduled;
+
+    public PuzzlePool(int capacity) {
+        this(capacity, null);
+    }
+
+    public PuzzlePool(int capacity, Path directory) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.directory = directory;
+        queues = new EnumMap<>(Difficulty.class);
+        for (Difficulty d : Difficulty.values()) {
+            queues.put(d, new ArrayBlockingQueue<>(capacity));
+        }
+        refillScheduled = new AtomicBoolean();
+        refiller = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "puzzle-pool-refill");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        if (directory == null) {
+            scheduleRefill();
+        }
+    }
+
+    public SudokuLogic take(Difficulty d) {
+        return poll(d).toSudoku();
+    }
+
+    public int[][] takeGrid(Difficulty d) {
+        return poll(d).grid();
+    }
+
+    // Copies a pooled puzzle into grid and returns its ID; the pool keeps no reference to grid.
+    public PuzzleId takeInto(Difficulty d, int[][] grid) {
+        Pooled pooled = poll(d);
+        int[][] source = pooled.grid();
+        for (int i = 0; i < source.length; i++) {
+            System.arraycopy(source[i], 0, grid[i], 0, source.length);
+        }
+        return pooled.id;
+    }
+
+    // Like take, but a puzzle that still has to be generated is generated off the
+    // caller's thread, so it is safe to call on the EDT.
+    public CompletableFuture<SudokuLogic> takeAsync(Difficulty d) {
+        Pooled polled = queues.get(d).poll();
+        scheduleRefill();
+        Pooled pooled = polled != null ? polled : new Pooled(PuzzleId.random(3, d));
+        if (pooled.isGenerated()) {
+            return CompletableFuture.completedFuture(pooled.toSudoku());
+        }
+        // not the refiller, which may be busy topping up every queue
+        return CompletableFuture.supplyAsync(pooled::toSudoku);
+    }
+
+    // Hands out a pooled puzzle, or a new one to generate on the spot if the pool has run dry.
+    private Pooled poll(Difficulty d) {
+        Pooled pooled = queues.get(d).poll();
+        scheduleRefill();
+        return pooled != null ? pooled : new Pooled(PuzzleId.random(3, d));
+    }
+
+    public int available(Difficulty d) {
+        return queues.get(d).size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Writes the seeds of what is currently pooled, one file per difficulty:
+    // magic "SDKP" followed by 8 bytes per puzzle.
+    public void save() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        Files.createDirectories(directory);
+        for (Difficulty d : Difficulty.values()) {
+            List<Pooled> snapshot = new ArrayList<>(queues.get(d));
+            ByteBuffer out = ByteBuffer.allocate(MAGIC.length + 8 * snapshot.size());
+            out.put(MAGIC);
+            for (Pooled pooled : snapshot) {
+                out.putLong(pooled.id.getSeed());
+            }
+            Path file = fileFor(d);
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temp, out.array());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @Override
+    public void close() {
+        refiller.shutdownNow();
+        try {
+            refiller.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Reads back what save wrote, then starts topping up. A damaged file only costs
+    // the puzzles in it: the others are still loaded before the first error is thrown.
+    public void load() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        IOException failure = null;
+        try {
+            for (Difficulty d : Difficulty.values()) {
+                Path file = fileFor(d);
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                ArrayBlockingQueue<Pooled> queue = queues.get(d);
+                try {
+                    ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+                    for (byte b : MAGIC) {
+                        if (!in.hasRemaining() || in.get() != b) {
+                            throw new IOException("Not a puzzle pool: " + file);
+                        }
+                    }
+                    while (queue.remainingCapacity() > 0 && in.remaining() >= 8) {
+                        queue.offer(new Pooled(PuzzleId.of(in.getLong(), d)));
+                    }
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        } finally {
+            scheduleRefill();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Path fileFor(Difficulty d) {
+        return directory.resolve("pool-" + d.name().toLowerCase(Locale.ROOT) + ".seeds");
+    }
+
+    private void scheduleRefill() {
+        if (!refillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refiller.execute(this::refill);
+        } catch (RejectedExecutionException e) {
+            refillScheduled.set(false);
+        }
+    }
+
+    // Regenerates the boards of loaded seeds, then tops up the emptiest queue
+    // first, one puzzle at a time, until all are full.
+    private void refill() {
+        SolutionCounter counter = new SolutionCounter();
+        try {
+            for (ArrayBlockingQueue<Pooled> queue : queues.values()) {
+                for (Pooled pooled : queue) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    pooled.generate(counter);
+                }
+            }
+            while (!Thread.currentThread().isInterrupted()) {
+                Difficulty emptiest = null;
+                for (Difficulty d : Difficulty.values()) {
+                    if (emptiest == null || available(d) < available(emptiest)) {
+                        emptiest = d;
+                    }
+                }
+                if (available(emptiest) >= capacity) {
+                    break;
+                }
+                Pooled pooled = new Pooled(PuzzleId.random(3, emptiest));
+                pooled.generate(counter);
+                queues.get(emptiest).offer(pooled);
+            }
+        } finally {
+            refillScheduled.set(false);
+        }
+        for (Difficulty d : Difficulty.values()) {
+            if (available(d) < capacity && !Thread.currentThread().isInterrupted()) {
+                scheduleRefill();
+                break;
+            }
+        }
+    }
+
+    // A pooled seed and, once generated, its board. Whoever needs the board
+    // first generates it; the same seed always gives the same board, so a
+    // race only costs some duplicate work.
+    private static final class Pooled {
+        final PuzzleId id;
+        private volatile int[][] grid;
+
+        Pooled(PuzzleId id) {
+            this.id = id;
+        }
+
+        int[][] grid() {
+            int[][] g = grid;
+            return g != null ? g : generate(new SolutionCounter());
+        }
+
+        boolean isGenerated() {
+            return grid != null;
+        }
+
+        SudokuLogic toSudoku() {
+            SudokuLogic sudoku = SudokuGenerator.toSudoku(grid());
+            sudoku.setPuzzleId(id);
+            return sudoku;
+        }
+
+        int[][] generate(SolutionCounter counter) {
+            int[][] g = grid;
+            if (g == null) {
+                grid = g = SudokuGenerator.generateGrid(id, counter);
+            }
+            return g;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mauro.sudoku.game;
+
+import static com.mauro.sudoku.game.SudokuUnits.ALL_DIGITS;
+import static com.mauro.sudoku.game.SudokuUnits.CELLS;
+import static com.mauro.sudoku.game.SudokuUnits.UNIT_CELLS;
+
+import java.util.Arrays;
+
+// Plain Java over the same layout as the vector kernel: the innermost loop walks
+// a tile's boards, not cells, so it has no branches and C2 is free to vectorize it.
+final class ScalarBatchKernel implements BatchKernel {
+    private static final int WIDTH = 64;
+
+    private final short[] seen = new short[WIDTH], conflict = new short[WIDTH], full = new short[WIDTH];
+
+    @Override
+    public int width() {
+        return WIDTH;
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public void check(short[] cells, int boards, byte[] flags) {
+        for (int from = 0; from < boards; from += WIDTH) {
+            Arrays.fill(conflict, (short) 0);
+            Arrays.fill(full, (short) ALL_DIGITS);
+            for (int[] unit : UNIT_CELLS) {
+                Arrays.fill(seen, (short) 0);
+                for (int cell : unit) {
+                    int base = from * CELLS + cell * WIDTH;
+                    for (int b = 0; b < WIDTH; b++) {
+                        // digit d is bit d - 1, and a blank no bit at all
+                        int bit = (1 << cells[base + b]) >>> 1;
+                        conflict[b] |= seen[b] & bit;
+                        seen[b] |= bit;
+                    }
+                }
+                for (int b = 0; b < WIDTH; b++) {
+                    full[b] &= seen[b];
+                }
+            }
+            for (int b = 0; b < WIDTH; b++) {
+                flags[from + b] = (byte) ((conflict[b] != 0 ? FLAG_CONFLICT : 0)
+                                        | (full[b] != ALL_DIGITS ? FLAG_INCOMPLETE : 0));
+            }
+        }
+    }
+}
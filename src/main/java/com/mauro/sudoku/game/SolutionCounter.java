@@ -0,0 +1,121 @@
+package com.mauro.sudoku.game;
+
+// Bitmask backtracking counter used to check uniqueness while digging out
+// puzzles. Always branches on the empty cell with the fewest candidates,
+// which also takes care of naked singles, and stops as soon as the requested
+// number of solutions has been seen. Works on grids of box x box boxes,
+// 9x9 by default, with long masks. Not thread safe.
+//
+// Proving a sparse 16x16 or 25x25 puzzle unique can take an exponential
+// search, so callers may give it a node budget. Running out of it counts as
+// having found limit solutions: the answer is then "maybe not unique".
+final class SolutionCounter {
+    private final int size, cells;
+    private final long allDigits;
+    private final int[] row, col, box;
+
+    private final long[] rows, cols, boxes;
+    private final int[] empties;
+    private int emptyCount;
+    private int found, limit;
+    private long budget;
+
+    SolutionCounter() {
+        this(3);
+    }
+
+    SolutionCounter(int boxSize) {
+        SudokuGeometry shape = SudokuGeometry.of(boxSize);
+        size = shape.size;
+        cells = shape.cells;
+        allDigits = shape.allDigits;
+        row = new int[cells];
+        col = new int[cells];
+        box = new int[cells];
+        for (int k = 0; k < cells; k++) {
+            row[k] = k / size;
+            col[k] = k % size;
+            box[k] = shape.boxOf(row[k], col[k]);
+        }
+        rows = new long[size];
+        cols = new long[size];
+        boxes = new long[size];
+        empties = new int[cells];
+    }
+
+    int count(int[][] grid, int limit) {
+        return count(grid, limit, Long.MAX_VALUE);
+    }
+
+    int count(int[][] grid, int limit, long maxNodes) {
+        for (int u = 0; u < size; u++) {
+            rows[u] = cols[u] = boxes[u] = 0;
+        }
+        emptyCount = 0;
+        for (int k = 0; k < cells; k++) {
+            int val = grid[row[k]][col[k]];
+            if (val == 0) {
+                empties[emptyCount++] = k;
+                continue;
+            }
+            long bit = 1L << (val - 1);
+            if (((rows[row[k]] | cols[col[k]] | boxes[box[k]]) & bit) != 0) {
+                return 0;
+            }
+            rows[row[k]] |= bit;
+            cols[col[k]] |= bit;
+            boxes[box[k]] |= bit;
+        }
+        this.limit = limit;
+        found = 0;
+        budget = maxNodes;
+        search(0);
+        return found;
+    }
+
+    private void search(int depth) {
+        if (depth == emptyCount) {
+            found++;
+            return;
+        }
+        if (--budget < 0) {
+            found = limit;
+            return;
+        }
+        int bestIdx = -1, bestCount = size + 1;
+        long bestFree = 0;
+        for (int e = depth; e < emptyCount; e++) {
+            int k = empties[e];
+            long free = ~(rows[row[k]] | cols[col[k]] | boxes[box[k]]) & allDigits;
+            int count = Long.bitCount(free);
+            if (count < bestCount) {
+                bestCount = count;
+                bestFree = free;
+                bestIdx = e;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        if (bestCount == 0) {
+            return;
+        }
+        int k = empties[bestIdx];
+        empties[bestIdx] = empties[depth];
+        empties[depth] = k;
+        int r = row[k], c = col[k], b = box[k];
+        while (bestFree != 0 && found < limit) {
+            long bit = bestFree & -bestFree;
+            bestFree ^= bit;
+            rows[r] |= bit;
+            cols[c] |= bit;
+            boxes[b] |= bit;
+            search(depth + 1);
+            rows[r] ^= bit;
+            cols[c] ^= bit;
+            boxes[b] ^= bit;
+        }
+        empties[depth] = empties[bestIdx];
+        empties[bestIdx] = k;
+    }
+}
@@ -0,0 +1,29 @@
+package com.mauro.sudoku.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One solve or solution count by SudokuSolver, for JDK Flight Recorder.
+@Name("com.mauro.sudoku.Solver")
+@Label("Solver Run")
+@Category({"Sudoku", "Solver"})
+@StackTrace(false)
+final class SolverEvent extends Event {
+    @Label("Box Size")
+    int box;
+
+    @Label("Nodes")
+    @Description("Candidates tried by the search")
+    long nodes;
+
+    @Label("Backtracks")
+    @Description("Dead ends, where some constraint had no candidate left")
+    long backtracks;
+
+    @Label("Solutions")
+    int solutions;
+}
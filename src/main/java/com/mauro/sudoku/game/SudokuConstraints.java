@@ -0,0 +1,149 @@
+package com.mauro.sudoku.game;
+
+import java.util.Arrays;
+
+// Keeps track of which digits are used in every row, column and box so that
+// validity and completion can be answered without rescanning the board, and
+// of the digits still legal in every cell. Units are numbered as in
+// SudokuGeometry. Also indexes which cells clash with a peer holding the
+// same digit. Digit sets are long masks, bit (digit - 1) per digit.
+final class SudokuConstraints {
+    private final SudokuGeometry shape;
+    private final int size;
+
+    // how many times each digit shows up in a unit, indexed by unit * size + (digit - 1)
+    private final byte[] counts;
+    // bit (digit - 1) is set when the digit is present in the unit
+    private final long[] masks;
+    // bit (digit - 1) is set when the digit is present more than once in the unit
+    private final long[] dupes;
+    // digits not yet used by the row, column or box of each cell
+    private final long[] candidates;
+    private final byte[] values;
+    // how many peers of each cell hold the same digit as it, and one bit per cell where that isn't 0
+    private final byte[] clashes;
+    private final long[] conflicts;
+    private int filled;
+    private int duplicates;
+
+    SudokuConstraints() {
+        this(SudokuGeometry.of(3));
+    }
+
+    SudokuConstraints(SudokuGeometry shape) {
+        this.shape = shape;
+        size = shape.size;
+        counts = new byte[shape.units * size];
+        masks = new long[shape.units];
+        dupes = new long[shape.units];
+        candidates = new long[shape.cells];
+        values = new byte[shape.cells];
+        clashes = new byte[shape.cells];
+        conflicts = new long[(shape.cells + 63) / 64];
+        Arrays.fill(candidates, shape.allDigits);
+    }
+
+    void place(int val, int i, int j) {
+        long bit = 1L << (val - 1);
+        increment(i, val, bit);
+        increment(size + j, val, bit);
+        increment(2 * size + shape.boxOf(i, j), val, bit);
+        filled++;
+        int cell = i * size + j;
+        values[cell] = (byte) val;
+        candidates[cell] &= ~bit;
+        for (int p : shape.peers[cell]) {
+            candidates[p] &= ~bit;
+            if (values[p] == val) {
+                clash(p, 1);
+                clash(cell, 1);
+            }
+        }
+    }
+
+    void remove(int val, int i, int j) {
+        long bit = 1L << (val - 1);
+        decrement(i, val, bit);
+        decrement(size + j, val, bit);
+        decrement(2 * size + shape.boxOf(i, j), val, bit);
+        filled--;
+        int cell = i * size + j;
+        values[cell] = 0;
+        refreshCandidates(cell);
+        for (int p : shape.peers[cell]) {
+            refreshCandidates(p);
+            if (values[p] == val) {
+                clash(p, -1);
+                clash(cell, -1);
+            }
+        }
+    }
+
+    // Digits that could go in (i, j) without repeating one of its row, column
+    // or box. Only meaningful while the cell is empty.
+    long candidates(int i, int j) {
+        return candidates[i * size + j];
+    }
+
+    boolean isValid() {
+        return duplicates == 0;
+    }
+
+    boolean isComplete() {
+        return filled == shape.cells;
+    }
+
+    int filledCells() {
+        return filled;
+    }
+
+    boolean hasConflictAround(int i, int j) {
+        return (dupes[i] | dupes[size + j] | dupes[2 * size + shape.boxOf(i, j)]) != 0;
+    }
+
+    boolean isConflicting(int cell) {
+        return clashes[cell] != 0;
+    }
+
+    // 64 cells per word, cell 0 in the lowest bit of word 0
+    long conflictBits(int word) {
+        return conflicts[word];
+    }
+
+    // digits already taken by the row, column and box of (i, j)
+    long usedDigits(int i, int j) {
+        return masks[i] | masks[size + j] | masks[2 * size + shape.boxOf(i, j)];
+    }
+
+    private void refreshCandidates(int cell) {
+        candidates[cell] = ~usedDigits(cell / size, cell % size) & shape.allDigits;
+    }
+
+    private void clash(int cell, int delta) {
+        int count = clashes[cell] += delta;
+        if (count == 0) {
+            conflicts[cell >>> 6] &= ~(1L << (cell & 63));
+        } else {
+            conflicts[cell >>> 6] |= 1L << (cell & 63);
+        }
+    }
+
+    private void increment(int unit, int val, long bit) {
+        int count = ++counts[unit * size + val - 1];
+        masks[unit] |= bit;
+        if (count == 2) {
+            dupes[unit] |= bit;
+            duplicates++;
+        }
+    }
+
+    private void decrement(int unit, int val, long bit) {
+        int count = --counts[unit * size + val - 1];
+        if (count == 0) {
+            masks[unit] &= ~bit;
+        } else if (count == 1) {
+            dupes[unit] &= ~bit;
+            duplicates--;
+        }
+    }
+}
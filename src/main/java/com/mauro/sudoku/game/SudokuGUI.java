@@ -3,61 +3,112 @@ package com.mauro.sudoku.game;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.awt.geom.Line2D;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
-
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
 
 import javax.imageio.ImageIO;
+import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JRadioButtonMenuItem;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+
+import com.mauro.sudoku.metrics.Metrics;
 
 public class SudokuGUI extends JFrame {
     private static final String[] NUMBERS = {"1", "2", "3", "4", "5", "6", "7", "8", "9"};
     private static final Color CURSOR_COLORS[] = {Color.PINK, Color.GREEN.darker()};
+    private static final Color GIVEN_COLOR = new Color(48, 48, 48),
+                               CONFLICT_COLOR = new Color(128, 0, 0),
+                               HINT_COLOR = new Color(0, 64, 96);
     private static final BasicStroke CELLS_STROKE = new BasicStroke(.125F),
                                      GRID_STROKE = new BasicStroke(3);
+    private static final int POOL_CAPACITY = 8;
+    private static final Metrics.Timer PAINT_TIME = Metrics.global().timer("gui.paint");
+    private static final Metrics.Counter PAINTED_CELLS = Metrics.global().counter("gui.paint.cells");
+    private static final Path DATA_DIRECTORY = Paths.get(System.getProperty("user.home"), ".sudoku-gui");
+    private static final Path AUTOSAVE_FILE = DATA_DIRECTORY.resolve("autosave.sdks");
+    // -Dsudoku.startup=trace prints when the first frame and the first puzzle got painted,
+    // counted from JVM start; =exit also quits right after, for StartupBenchmark
+    private static final String STARTUP = System.getProperty("sudoku.startup");
 
 
-    private final Rectangle2D.Double GRID_CELL = new Rectangle2D.Double();
-    private final Line2D.Double GRID_LINE = new Line2D.Double();
     // private final boolean[][] WRONG_DIGITS = new boolean[9][9];
 
     private final Rectangle2D.Double CURSOR = new Rectangle2D.Double();
     
-    private HashMap<String, BufferedImage> imageMap;
+    // null until the digit atlas is decoded
+    private GlyphCache glyphs;
+    private GridOverlay gridOverlay;
+    private JPanel boardPanel;
+    // cells whose rectangles need repainting, one bit per cell
+    private final long[] dirtyCells = new long[2];
+    // conflicting cells as last painted, and as they are now
+    private final long[] shownConflicts = new long[2], conflicts = new long[2];
+    // cells the last hint was based on, highlighted until the next edit
+    private final long[] hintCells = new long[2];
 
     private double gridScaleX, gridScaleY;
     private double subscaleX, subscaleY;
     private double cursorX, cursorY;
     
+    private PuzzlePool pool;
+    private Autosaver autosaver;
+    // time played before the current session of the game, and when that session started
+    private long elapsedBefore, startedAt;
+    private Difficulty difficulty;
+    private boolean autoNotes, autoRemoveNotes;
+    private JCheckBoxMenuItem autoNotesItem, autoRemoveNotesItem;
+    // showing the placeholder board while a game is on its way
+    private boolean loading;
+    // the game asked for last, until it starts
+    private CompletableFuture<SudokuLogic> pendingGame;
+    private boolean paintedFrame, paintedPuzzle;
     private SudokuLogic sudoku;
     private int cursorColorIdx;
     private int numberToInsert;
     private int insertX, insertY;
 
     public SudokuGUI() {
-        imageMap = new HashMap<>();
-        loadImages();
+        // the glyphs and the first game load off the EDT while the window comes up
+        CompletableFuture<BufferedImage[]> digits = CompletableFuture.supplyAsync(SudokuGUI::loadDigits);
+        gridOverlay = new GridOverlay(CELLS_STROKE, GRID_STROKE);
 
         cursorX = cursorY = -1;
         subscaleX = subscaleY = cursorX = cursorY = -1;
@@ -65,7 +116,28 @@ public class SudokuGUI extends JFrame {
         insertX = insertY = -1;
         cursorColorIdx = 0;
 
-        sudoku = SudokuGenerator.generateSudoku();
+        pool = new PuzzlePool(POOL_CAPACITY, DATA_DIRECTORY);
+        try {
+            pool.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        autosaver = new Autosaver(AUTOSAVE_FILE);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            autosaver.close();
+            try {
+                pool.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+        difficulty = Difficulty.MEDIUM;
+        autoNotes = autoRemoveNotes = false;
+        CompletableFuture<Object> firstGame = CompletableFuture.supplyAsync(() -> {
+            GameSnapshot snapshot = loadSnapshot(AUTOSAVE_FILE);
+            return snapshot != null && snapshot.getSudoku().getSize() == 9 ? snapshot : pool.take(difficulty);
+        });
+        showPlaceholder();
         numberToInsert = -1;
 
         setBackground(Color.BLACK);
@@ -73,17 +145,110 @@ public class SudokuGUI extends JFrame {
         add(mainPanel());
         setJMenuBar(menuBar());
         setDefaultCloseOperation(EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                autosave();
+            }
+        });
         setSize(598, 713);
         setLocationRelativeTo(null);
         setVisible(true);
-        System.out.println(getContentPane().getSize());
+
+        digits.thenAcceptBoth(firstGame, (images, game) -> SwingUtilities.invokeLater(() -> {
+            glyphs = new GlyphCache(images);
+            // a game the player already started from the menu wins
+            if (loading && pendingGame == null) {
+                if (game instanceof GameSnapshot) {
+                    resume((GameSnapshot) game);
+                } else {
+                    startGame((SudokuLogic) game);
+                }
+            }
+            repaintBoard();
+        })).exceptionally(e -> {
+            e.printStackTrace();
+            SwingUtilities.invokeLater(() -> {
+                JOptionPane.showMessageDialog(this, "Starting the game has failed: " + e.getCause().getMessage(),
+                                              getTitle(), JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+            });
+            return null;
+        });
     }
 
     private JMenuBar menuBar() {
         JMenuBar menuBar = new JMenuBar();
         JMenu menu = new JMenu("File");
-        JMenuItem item = new JMenuItem("Exit");
-        item.addActionListener(e -> System.exit(0));
+        JMenuItem item = new JMenuItem("Open...");
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_O, InputEvent.CTRL_DOWN_MASK));
+        item.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(DATA_DIRECTORY.toFile());
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                // the current game stays if the file can't be played
+                GameSnapshot snapshot = loadSnapshot(chooser.getSelectedFile().toPath());
+                if (snapshot == null) {
+                    JOptionPane.showMessageDialog(this, "That file isn't a saved game", getTitle(), JOptionPane.ERROR_MESSAGE);
+                } else if (snapshot.getSudoku().getSize() != 9) {
+                    JOptionPane.showMessageDialog(this, "Only 9x9 puzzles can be played here.", getTitle(),
+                                                  JOptionPane.ERROR_MESSAGE);
+                } else {
+                    resume(snapshot);
+                    autosave();
+                    repaintBoard();
+                }
+            }
+        });
+        menu.add(item);
+        item = new JMenuItem("Save...");
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_S, InputEvent.CTRL_DOWN_MASK));
+        item.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(DATA_DIRECTORY.toFile());
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    GameSnapshot.save(sudoku, elapsedMillis(), chooser.getSelectedFile().toPath());
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Saving has failed: " + ex.getMessage(), getTitle(), JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        });
+        menu.add(item);
+        item = new JMenuItem("Metrics");
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_M, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK));
+        item.addActionListener(e -> {
+            JTextArea text = new JTextArea(Metrics.global().dump(), 12, 90);
+            text.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+            text.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(text), "Metrics", JOptionPane.PLAIN_MESSAGE);
+        });
+        menu.add(item);
+        menu.addSeparator();
+        item = new JMenuItem("Exit");
+        item.addActionListener(e -> {
+            autosave();
+            System.exit(0);
+        });
+        menu.add(item);
+        menuBar.add(menu);
+
+        menu = new JMenu("Edit");
+        item = new JMenuItem("Undo");
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+        item.addActionListener(e -> {
+            if (sudoku.undo()) {
+                repaintBoard();
+                autosave();
+            }
+        });
+        menu.add(item);
+        item = new JMenuItem("Redo");
+        item.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+        item.addActionListener(e -> {
+            if (sudoku.redo()) {
+                repaintBoard();
+                autosave();
+            }
+        });
         menu.add(item);
         menuBar.add(menu);
 
@@ -91,14 +256,181 @@ public class SudokuGUI extends JFrame {
 
         item = new JMenuItem("Restart");
         item.addActionListener(e -> {
-            sudoku = SudokuGenerator.generateSudoku();
-            repaint();
+            newGame();
+            repaintBoard();
+        });
+        menu.add(item);
+
+        JMenu difficultyMenu = new JMenu("Difficulty");
+        ButtonGroup group = new ButtonGroup();
+        for (Difficulty d : Difficulty.values()) {
+            String name = d.name().charAt(0) + d.name().substring(1).toLowerCase();
+            JRadioButtonMenuItem radio = new JRadioButtonMenuItem(name, d == difficulty);
+            radio.addActionListener(e -> {
+                difficulty = d;
+                newGame();
+                repaintBoard();
+            });
+            group.add(radio);
+            difficultyMenu.add(radio);
+        }
+        menu.add(difficultyMenu);
+
+        item = new JMenuItem("Daily puzzle");
+        item.addActionListener(e -> {
+            startPuzzle(PuzzleId.daily(LocalDate.now(), difficulty));
+            repaintBoard();
+        });
+        menu.add(item);
+
+        // shows the ID of the current puzzle for copying, and starts the one typed in
+        item = new JMenuItem("Puzzle ID...");
+        item.addActionListener(e -> {
+            PuzzleId current = sudoku.getPuzzleId();
+            Object typed = JOptionPane.showInputDialog(this, "Puzzle ID", "Sudoku", JOptionPane.PLAIN_MESSAGE,
+                                                       null, null, current != null ? current.toString() : "");
+            if (typed == null || typed.toString().isBlank()) {
+                return;
+            }
+            try {
+                PuzzleId id = PuzzleId.parse(typed.toString());
+                if (id.getBoxSize() != 3) {
+                    JOptionPane.showMessageDialog(this, "Only 9x9 puzzles can be played here.");
+                } else if (!id.equals(current)) {
+                    startPuzzle(id);
+                    repaintBoard();
+                }
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage());
+            }
+        });
+        menu.add(item);
+        menuBar.add(menu);
+
+        menu = new JMenu("Assist");
+        autoNotesItem = new JCheckBoxMenuItem("Auto notes", autoNotes);
+        autoNotesItem.addActionListener(e -> {
+            autoNotes = autoNotesItem.isSelected();
+            sudoku.setAutoNotes(autoNotes);
+            repaintBoard();
+            autosave();
+        });
+        menu.add(autoNotesItem);
+        autoRemoveNotesItem = new JCheckBoxMenuItem("Remove notes from peers", autoRemoveNotes);
+        autoRemoveNotesItem.addActionListener(e -> {
+            autoRemoveNotes = autoRemoveNotesItem.isSelected();
+            sudoku.setAutoRemoveNotes(autoRemoveNotes);
+        });
+        menu.add(autoRemoveNotesItem);
+        item = new JMenuItem("Fill in notes");
+        item.addActionListener(e -> {
+            sudoku.fillNotesWithCandidates();
+            repaintBoard();
+            autosave();
         });
         menu.add(item);
         menuBar.add(menu);
         return menuBar;
     }
 
+    private void newGame() {
+        startGameLater(pool.takeAsync(difficulty));
+    }
+
+    // Shows the placeholder until next is ready, then starts it on the EDT. Of games
+    // asked for in a row, only the last one starts.
+    private void startGameLater(CompletableFuture<SudokuLogic> next) {
+        if (next.isDone() && !next.isCompletedExceptionally()) {
+            startGame(next.join());
+            return;
+        }
+        autosave();
+        showPlaceholder();
+        pendingGame = next;
+        next.whenComplete((game, failure) -> SwingUtilities.invokeLater(() -> {
+            if (pendingGame != next) {
+                return;
+            }
+            pendingGame = null;
+            if (failure != null) {
+                failure.printStackTrace();
+                JOptionPane.showMessageDialog(this, "Starting the game has failed: " + failure.getCause().getMessage(),
+                                              getTitle(), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            startGame(game);
+            repaintBoard();
+        }));
+    }
+
+    // an empty board that takes no input until the next game is in
+    private void showPlaceholder() {
+        sudoku = new SudokuLogic();
+        sudoku.disable();
+        loading = true;
+    }
+
+    // grading a seed's attempts can take a while, so it happens off the EDT
+    private void startPuzzle(PuzzleId id) {
+        startGameLater(CompletableFuture.supplyAsync(() -> SudokuGenerator.generateSudoku(id)));
+    }
+
+    private void startGame(SudokuLogic next) {
+        loading = false;
+        pendingGame = null;
+        sudoku = next;
+        applyAssists(sudoku, autoNotes, autoRemoveNotes);
+        elapsedBefore = 0;
+        startedAt = System.nanoTime();
+        autosave();
+    }
+
+    // Turns the assists on for a game about to start. The notes they fill in are
+    // part of the starting board, not a move the first undo should take back.
+    static void applyAssists(SudokuLogic next, boolean autoNotes, boolean autoRemoveNotes) {
+        next.setAutoRemoveNotes(autoRemoveNotes);
+        next.setAutoNotes(autoNotes);
+        next.clearHistory();
+    }
+
+    private void resume(GameSnapshot snapshot) {
+        loading = false;
+        pendingGame = null;
+        sudoku = snapshot.getSudoku();
+        autoNotes = sudoku.isAutoNotes();
+        autoRemoveNotes = sudoku.isAutoRemovingNotes();
+        autoNotesItem.setSelected(autoNotes);
+        autoRemoveNotesItem.setSelected(autoRemoveNotes);
+        cursorColorIdx = sudoku.isTakingNotes() ? 1 : 0;
+        elapsedBefore = snapshot.getElapsedMillis();
+        startedAt = System.nanoTime();
+    }
+
+    // null if there is no readable saved game in file; safe off the EDT
+    private static GameSnapshot loadSnapshot(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return GameSnapshot.load(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private long elapsedMillis() {
+        return elapsedBefore + (System.nanoTime() - startedAt) / 1_000_000;
+    }
+
+    private void autosave() {
+        // the placeholder must never replace the saved game
+        if (loading) {
+            return;
+        }
+        autosaver.save(sudoku, elapsedMillis());
+    }
+
     private JPanel mainPanel() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBackground(Color.BLACK);
@@ -110,7 +442,8 @@ public class SudokuGUI extends JFrame {
         gc.weighty = .75;
         gc.fill = GridBagConstraints.BOTH;
         gc.anchor = GridBagConstraints.CENTER;
-        panel.add(sudokuPanel(), gc);
+        boardPanel = sudokuPanel();
+        panel.add(boardPanel, gc);
 
         gc.gridx = 0;
         gc.gridy = 1;
@@ -145,7 +478,9 @@ public class SudokuGUI extends JFrame {
                 } else {
                     sudoku.put(insert, insertY, insertX);
                 }
-                repaint();
+                markEdited(insertY, insertX);
+                flushDirty();
+                autosave();
             });
             panel.add(button);
         }
@@ -153,7 +488,9 @@ public class SudokuGUI extends JFrame {
         button.addActionListener(e -> {
             sudoku.toggleNoteTaking();
             cursorColorIdx = (cursorColorIdx + 1) % 2;
-            repaint();
+            markDirty(insertY, insertX);
+            flushDirty();
+            autosave();
         });
         panel.add(button);
 
@@ -164,84 +501,130 @@ public class SudokuGUI extends JFrame {
             } else {
                 sudoku.delete(insertY, insertX);
             }
-            repaint();
+            markEdited(insertY, insertX);
+            flushDirty();
+            autosave();
         });
         panel.add(button);
         
         button = new JButton("Check");
         button.addActionListener(e -> {
             if (!sudoku.hasEmptyCells() && sudoku.isValidSudoku()) {
-                JOptionPane.showInternalMessageDialog(null, "Congratulations!", getTitle(), JOptionPane.INFORMATION_MESSAGE);
+                long seconds = elapsedMillis() / 1000;
+                String time = String.format("%d:%02d", seconds / 60, seconds % 60);
+                JOptionPane.showInternalMessageDialog(null, "Congratulations! Solved in " + time, getTitle(), JOptionPane.INFORMATION_MESSAGE);
                 sudoku.disable();
+                autosave();
             } else {
                 JOptionPane.showInternalMessageDialog(null, "Hmm... something's not right *thinks*", getTitle(), JOptionPane.ERROR_MESSAGE);
             }
         });
         panel.add(button);
+
+        button = new JButton("Hint");
+        button.addActionListener(e -> {
+            Hint hint = sudoku.isDisabled() ? null : sudoku.hint();
+            if (hint == null) {
+                JOptionPane.showInternalMessageDialog(null, "No hints here, is every answer right?", getTitle(), JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            clearHint();
+            for (int cell : hint.getCells()) {
+                hintCells[cell >>> 6] |= 1L << (cell & 63);
+                markDirty(cell / 9, cell % 9);
+            }
+            markDirty(insertY, insertX);
+            insertY = hint.getRow();
+            insertX = hint.getColumn();
+            markDirty(insertY, insertX);
+            flushDirty();
+            JOptionPane.showInternalMessageDialog(null, hint.toString(), getTitle(), JOptionPane.INFORMATION_MESSAGE);
+        });
+        panel.add(button);
         return panel;
     }
 
+    // Takes the highlight of the last hint off the board.
+    private void clearHint() {
+        for (int w = 0; w < 2; w++) {
+            while (hintCells[w] != 0) {
+                int cell = w * 64 + Long.numberOfTrailingZeros(hintCells[w]);
+                markDirty(cell / 9, cell % 9);
+                hintCells[w] &= hintCells[w] - 1;
+            }
+        }
+    }
+
+    private boolean isHinted(int i, int j) {
+        int cell = i * 9 + j;
+        return (hintCells[cell >>> 6] & 1L << (cell & 63)) != 0;
+    }
+
     private JPanel sudokuPanel() {
         JPanel panel = new JPanel() {
             @Override
             public void paintComponent(Graphics g) {
+                PaintEvent event = FlightEvents.enabled() ? new PaintEvent() : null;
+                if (event != null) {
+                    event.begin();
+                }
+                long start = System.nanoTime();
                 Graphics2D g2 = (Graphics2D) g;
 
-                double width = getWidth();
-                double height = getHeight();
+                int width = getWidth();
+                int height = getHeight();
 
-                gridScaleX =  width / 9;
-                gridScaleY = height / 9;
-                subscaleX = width / 27;
-                subscaleY = height / 27;
-                
-                g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-                for (int i = 0; i < 9; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        int val = sudoku.getValueIn(i * 3, j * 3);
-                        if (!sudoku.hasDefinitiveAnswerIn(i * 3, j * 3)) {
-                            continue;
-                        }
-                        g2.drawImage(imageMap.get(NUMBERS[val - 1]), (int) (j * gridScaleX), (int) (i * gridScaleY), (int) gridScaleX, (int) gridScaleY, null);
-                    }
+                gridScaleX =  width / 9.0;
+                gridScaleY = height / 9.0;
+                subscaleX = width / 27.0;
+                subscaleY = height / 27.0;
+
+                Rectangle clip = g2.getClipBounds();
+                if (clip == null) {
+                    clip = new Rectangle(0, 0, width, height);
                 }
+                g2.setColor(getBackground());
+                g2.fill(clip);
 
-                for (int i = 0; i < 27; i++) {
-                    for (int j = 0; j < 27; j++) {
-                        int val = sudoku.getValueIn(i, j);
-                        if (sudoku.hasDefinitiveAnswerIn(i, j) || val == 0) {
+                int top = Math.max(0, (int) (clip.y / gridScaleY));
+                int bottom = Math.min(8, (int) ((clip.y + clip.height) / gridScaleY));
+                int left = Math.max(0, (int) (clip.x / gridScaleX));
+                int right = Math.min(8, (int) ((clip.x + clip.width) / gridScaleX));
+
+                if (glyphs != null) {
+                    glyphs.ensure(g2, (int) gridScaleX, (int) gridScaleY, (int) subscaleX, (int) subscaleY);
+                }
+                for (int i = top; i <= bottom; i++) {
+                    for (int j = left; j <= right; j++) {
+                        int x = (int) (j * gridScaleX), y = (int) (i * gridScaleY);
+                        boolean answered = sudoku.hasDefinitiveAnswerIn(i * 3, j * 3);
+                        if (sudoku.isConflicting(i, j) || isHinted(i, j) || (answered && sudoku.isGiven(i, j))) {
+                            g2.setColor(sudoku.isConflicting(i, j) ? CONFLICT_COLOR
+                                        : isHinted(i, j) ? HINT_COLOR : GIVEN_COLOR);
+                            g2.fillRect(x, y, (int) ((j + 1) * gridScaleX) - x, (int) ((i + 1) * gridScaleY) - y);
+                        }
+                        if (glyphs == null) {
+                            continue;
+                        }
+                        if (answered) {
+                            glyphs.drawAnswer(g2, sudoku.getValueIn(i * 3, j * 3), x, y);
                             continue;
                         }
-                        g2.drawImage(imageMap.get(NUMBERS[val - 1]), (int) (j * subscaleX), (int) (i * subscaleY), (int) subscaleX, (int) subscaleY, null);
+                        for (int k = i * 3; k < i * 3 + 3; k++) {
+                            for (int l = j * 3; l < j * 3 + 3; l++) {
+                                int val = sudoku.getValueIn(k, l);
+                                if (val != 0) {
+                                    glyphs.drawNote(g2, val, (int) (l * subscaleX), (int) (k * subscaleY));
+                                }
+                            }
+                        }
                     }
                 }
 
-                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-
-                g2.setColor(Color.WHITE);
-                g2.setStroke(CELLS_STROKE);
-
-                for (int i = 0; i < 9; i++) {
-                    for (int j = 0; j < 9; j++) {
-                        GRID_CELL.setRect(i * gridScaleX, j * gridScaleY, gridScaleX, gridScaleY);
-                        g2.draw(GRID_CELL);
-                    }
-                }
+                gridOverlay.draw(g2, width, height);
 
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 g2.setStroke(GRID_STROKE);
-                g2.setColor(Color.GRAY);
-
-                GRID_LINE.setLine(gridScaleX * 3, 0, gridScaleX * 3, gridScaleY * 9);
-                g2.draw(GRID_LINE);
-
-                GRID_LINE.setLine(gridScaleX * 6, 0, gridScaleX * 6, gridScaleY * 9);               
-                g2.draw(GRID_LINE);
-
-                GRID_LINE.setLine(0, gridScaleY * 3, gridScaleX * 9, gridScaleY * 3);               
-                g2.draw(GRID_LINE);
-
-                GRID_LINE.setLine(0, gridScaleY * 6, gridScaleX * 9, gridScaleY * 6);               
-                g2.draw(GRID_LINE);
 
                 cursorX = insertX * gridScaleX;
                 cursorY = insertY * gridScaleY;
@@ -249,18 +632,34 @@ public class SudokuGUI extends JFrame {
                 g2.setColor(CURSOR_COLORS[cursorColorIdx]);
                 CURSOR.setFrame(cursorX, cursorY, gridScaleX, gridScaleY);
                 g2.draw(CURSOR);
+
+                int cells = (bottom - top + 1) * (right - left + 1);
+                PAINT_TIME.recordSince(start);
+                PAINTED_CELLS.add(cells);
+                if (event != null && event.shouldCommit()) {
+                    event.cells = cells;
+                    event.width = clip.width;
+                    event.height = clip.height;
+                    event.commit();
+                }
+                if (STARTUP != null) {
+                    traceStartup();
+                }
             }
         };
+        panel.setBackground(Color.BLACK);
         panel.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
+                markDirty(insertY, insertX);
                 insertX = (e.getX() / (int) gridScaleX);
                 insertY = (e.getY() / (int) gridScaleY);
 
                 insertX = insertX >= 9 ? 8 : insertX;
                 insertY = insertY >= 9 ? 8 : insertY; 
 
-                repaint();
+                markDirty(insertY, insertX);
+                flushDirty();
                 panel.grabFocus();
             }  
         });
@@ -284,11 +683,15 @@ public class SudokuGUI extends JFrame {
                         sudoku.put(numberToInsert, insertY, insertX);
                     }
                 } else if (keycode == KeyEvent.VK_DELETE) {
-                    System.out.println("del");
                     sudoku.delete(insertY, insertX);
+                } else {
+                    // leave it to the menu accelerators
+                    return;
                 }
                 e.consume();
-                repaint();
+                markEdited(insertY, insertX);
+                flushDirty();
+                autosave();
                 panel.grabFocus();
             }
         });
@@ -296,26 +699,146 @@ public class SudokuGUI extends JFrame {
         return panel;
     }
 
-    // used only once per instance
-    private void loadImages() {
-        for (String num : NUMBERS) {
-            URL url = SudokuGUI.class.getResource(String.format("images/%s.png", num));
-            if (url == null) {
-                JOptionPane.showMessageDialog(null, String.format("Loading of image %s.png has failed", num), "Image loading has failed", JOptionPane.ERROR_MESSAGE);
-                System.exit(1);
+    private void traceStartup() {
+        long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        if (!paintedFrame) {
+            paintedFrame = true;
+            System.err.println("startup: first frame painted after " + millis + " ms");
+        }
+        if (!paintedPuzzle && !loading && glyphs != null) {
+            paintedPuzzle = true;
+            System.err.println("startup: first puzzle painted after " + millis + " ms");
+            if (STARTUP.equals("exit")) {
+                System.exit(0);
             }
-            loadImage(url, num);
         }
     }
 
-    private void loadImage(URL url, String key) {
+    private void markDirty(int i, int j) {
+        if (i < 0 || i >= 9 || j < 0 || j >= 9) {
+            return;
+        }
+        int cell = i * 9 + j;
+        dirtyCells[cell >>> 6] |= 1L << (cell & 63);
+    }
+
+    // The edited cell, plus its row, column and box when an assist may have changed their notes,
+    // plus the cells that started or stopped conflicting.
+    private void markEdited(int i, int j) {
+        markDirty(i, j);
+        clearHint();
+        markConflictChanges();
+        if (!sudoku.isAutoNotes() && !sudoku.isAutoRemovingNotes()) {
+            return;
+        }
+        for (int k = 0; k < 9; k++) {
+            markDirty(i, k);
+            markDirty(k, j);
+            markDirty((i / 3) * 3 + k / 3, (j / 3) * 3 + k % 3);
+        }
+    }
+
+    private void markConflictChanges() {
+        sudoku.getConflicts(conflicts);
+        for (int w = 0; w < 2; w++) {
+            long changed = conflicts[w] ^ shownConflicts[w];
+            while (changed != 0) {
+                int cell = w * 64 + Long.numberOfTrailingZeros(changed);
+                markDirty(cell / 9, cell % 9);
+                changed &= changed - 1;
+            }
+            shownConflicts[w] = conflicts[w];
+        }
+    }
+
+    private void repaintBoard() {
+        hintCells[0] = hintCells[1] = 0;
+        sudoku.getConflicts(shownConflicts);
+        dirtyCells[0] = dirtyCells[1] = 0;
+        boardPanel.repaint();
+    }
+
+    // Paints every dirty cell right away, one rectangle per horizontal run, so that
+    // the repaint manager doesn't merge far apart cells into one big region.
+    private void flushDirty() {
+        int pad = (int) Math.ceil(GRID_STROKE.getLineWidth());
+        for (int i = 0; i < 9; i++) {
+            int j = 0;
+            while (j < 9) {
+                if (!isDirty(i * 9 + j)) {
+                    j++;
+                    continue;
+                }
+                int start = j;
+                while (j < 9 && isDirty(i * 9 + j)) {
+                    j++;
+                }
+                int x = (int) (start * gridScaleX) - pad;
+                int y = (int) (i * gridScaleY) - pad;
+                int w = (int) Math.ceil((j - start) * gridScaleX) + 2 * pad;
+                int h = (int) Math.ceil(gridScaleY) + 2 * pad;
+                boardPanel.paintImmediately(x, y, w, h);
+            }
+        }
+        dirtyCells[0] = dirtyCells[1] = 0;
+    }
+
+    private boolean isDirty(int cell) {
+        return (dirtyCells[cell >>> 6] & (1L << (cell & 63))) != 0;
+    }
+
+    // Goes through what startup does, minus the window: decodes and scales the glyphs,
+    // builds and paints Swing components offscreen and generates a puzzle. Run headless
+    // by "sudoku warmup" when the build records the class-data sharing archive.
+    public static void warmUp() throws InterruptedException, InvocationTargetException {
+        BufferedImage frame = new BufferedImage(598, 713, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = frame.createGraphics();
+        GlyphCache glyphs = new GlyphCache(loadDigits());
+        glyphs.ensure(g2, 54, 54, 18, 18);
+        for (int d = 1; d <= 9; d++) {
+            glyphs.drawAnswer(g2, d, 0, 0);
+            glyphs.drawNote(g2, d, 0, 0);
+        }
+        new GridOverlay(CELLS_STROKE, GRID_STROKE).draw(g2, 486, 486);
+        SwingUtilities.invokeAndWait(() -> {
+            JMenuBar menuBar = new JMenuBar();
+            JMenu menu = new JMenu("Game");
+            menu.add(new JMenuItem("Restart"));
+            menu.add(new JRadioButtonMenuItem("Medium", true));
+            menu.add(new JCheckBoxMenuItem("Auto notes"));
+            menuBar.add(menu);
+            JPanel panel = new JPanel(new GridBagLayout());
+            panel.add(menuBar, new GridBagConstraints());
+            JPanel buttons = new JPanel(new GridLayout(2, 9));
+            for (String number : NUMBERS) {
+                buttons.add(new JButton(number));
+            }
+            panel.add(buttons, new GridBagConstraints());
+            panel.setSize(598, 713);
+            panel.doLayout();
+            panel.paint(g2);
+        });
+        g2.dispose();
+        SudokuGenerator.generateSudoku(Difficulty.MEDIUM).hint();
+    }
+
+    // The digit images, cut out of one atlas strip: digit d is the d-th square from the left.
+    static BufferedImage[] loadDigits() {
+        URL url = SudokuGUI.class.getResource("images/digits.png");
+        if (url == null) {
+            throw new IllegalStateException("images/digits.png is missing");
+        }
+        BufferedImage atlas;
         try {
-            BufferedImage loadedImage = ImageIO.read(url);
-            imageMap.put(key, loadedImage);
-        } catch(IOException e) {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(null, String.format("Loading of image %s.png has failed", key), "Image loading has failed", JOptionPane.ERROR_MESSAGE);
-            System.exit(1);
-        } 
+            atlas = ImageIO.read(url);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Loading of images/digits.png has failed", e);
+        }
+        int side = atlas.getHeight();
+        BufferedImage[] digits = new BufferedImage[NUMBERS.length];
+        for (int i = 0; i < digits.length; i++) {
+            digits[i] = atlas.getSubimage(i * side, 0, side, side);
+        }
+        return digits;
     }
 }
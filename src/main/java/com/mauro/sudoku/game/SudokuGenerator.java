@@ -1,92 +1,388 @@
 package com.mauro.sudoku.game;
 
-import java.util.Random;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import com.mauro.sudoku.metrics.Metrics;
 
 public class SudokuGenerator {
+    // puzzles per batch task
+    private static final int BATCH_CHUNK = 64;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    // search nodes one uniqueness check may spend on boards bigger than 9x9
+    private static final long LARGE_BOARD_NODE_BUDGET = 20_000;
+    // the last attempt is kept, graded or not; medium takes about six on average
+    private static final int MAX_ATTEMPTS = 200;
+    private static final Metrics.Timer SOLUTION_TIME = Metrics.global().timer("generator.solution");
+    private static final Metrics.Timer DIG_OUT_TIME = Metrics.global().timer("generator.digout");
+    private static final Metrics.Timer GRADING_TIME = Metrics.global().timer("generator.grading");
+    private static final Metrics.Counter PUZZLES = Metrics.global().counter("generator.puzzles");
+
     private SudokuGenerator() {
     }
 
-    private static boolean checkedPutIn(int[][] grid, int row, int col, int c) {
-        for (int k = 0; k < 9; k++) {
-            if (grid[row][k] == c) {
-                return false;
-            }
-            if (grid[k][col] == c) {
-                return false;
+    // box size of a square grid of box * box rows
+    static int boxOf(int[][] grid) {
+        int box = (int) Math.round(Math.sqrt(grid.length));
+        if (box * box != grid.length) {
+            throw new IllegalArgumentException("Not a sudoku grid: " + grid.length + " rows");
+        }
+        return box;
+    }
+
+    // Blanks cells one at a time in random order, putting a cell back whenever
+    // removing it would leave the puzzle with more than one solution. Past 9x9
+    // a cell also goes back when uniqueness can't be settled within the node
+    // budget, so big boards may end up with fewer blanks than asked for.
+    static int digOut(int[][] grid, SplittableRandom r, int blanks, SolutionCounter counter) {
+        int size = grid.length, cells = size * size;
+        long budget = size > 9 ? LARGE_BOARD_NODE_BUDGET : Long.MAX_VALUE;
+        int[] order = new int[cells];
+        for (int k = 0; k < cells; k++) {
+            order[k] = k;
+        }
+        for (int k = cells - 1; k > 0; k--) {
+            int swap = r.nextInt(k + 1);
+            int aux = order[k];
+            order[k] = order[swap];
+            order[swap] = aux;
+        }
+        int removed = 0;
+        for (int k = 0; k < cells && removed < blanks; k++) {
+            int i = order[k] / size;
+            int j = order[k] % size;
+            int val = grid[i][j];
+            if (val == 0) {
+                continue;
             }
-            if (grid[3 * (row / 3) + k / 3][3 * (col / 3) + k % 3] == c) {
-                return false;
+            grid[i][j] = 0;
+            if (counter.count(grid, 2, budget) == 1) {
+                removed++;
+            } else {
+                grid[i][j] = val;
             }
         }
-        grid[row][col] = c;
-        return true;
+        return removed;
     }
 
-    private static void fillRegion(int[][] grid, int k, int l) {      
-        Random r = new Random();
-        for (int i = k; i < 3 + k; i++) {
-            for (int j = l; j < 3 + k; j++) {
-                int aux = 0;
-                do {
-                    aux = (int) (r.nextInt(9) + 1);
+    // Solved grids to shuffle from. Any valid grid stays valid under the shuffles of
+    // shuffledSolution, which only reach the grids equivalent to the one they start
+    // from, so 9x9 boards start from one of several unrelated grids found by search.
+    // The other sizes start from the pattern grid where row i is row 0 shifted by
+    // box * (i % box) + i / box, which is valid for any box size.
+    private static final String[] SEED_GRIDS_9 = {
+        "489351267531276489762498135195623874647985312328147956953714628814562793276839541",
+        "739516428162348759458297361216983547374651982895472613983165274527834196641729835",
+        "985463712731298465642571398318924657594786123276135849157842936823619574469357281",
+        "182367549763594281549182637437951826258736194691248753314875962925613478876429315",
+        "587621934362459781194378625759814362413296578628735149841967253275183496936542817",
+        "963512847472938156815746239689251374247389561351674982526493718134827695798165423",
+        "265941873879365214314287965153679482748132659926854731597418326431726598682593147",
+        "965317482743826915182594637396785241427139856518642793259463178874251369631978524",
+        "839612475654379182172485963581927634723546819496138527967251348245863791318794256",
+        "736451892294378615581296734679532148148769523325814967417625389952183476863947251",
+        "241635789598172346763849125834297561126583497975461832387916254612354978459728613",
+        "341867529876592143925314867759483612138726495264159738593648271487231956612975384",
+    };
+    private static final int[][][][] SEED_GRIDS = new int[SudokuGeometry.MAX_BOX + 1][][][];
+
+    static {
+        for (int box = SudokuGeometry.MIN_BOX; box <= SudokuGeometry.MAX_BOX; box++) {
+            int size = box * box;
+            if (box == 3) {
+                SEED_GRIDS[box] = new int[SEED_GRIDS_9.length][size][size];
+                for (int g = 0; g < SEED_GRIDS_9.length; g++) {
+                    for (int k = 0; k < size * size; k++) {
+                        SEED_GRIDS[box][g][k / size][k % size] = SEED_GRIDS_9[g].charAt(k) - '0';
+                    }
                 }
-                while (!checkedPutIn(grid, i, j, aux));
+                continue;
             }
+            int[][] pattern = new int[size][size];
+            for (int i = 0; i < size; i++) {
+                int shift = box * (i % box) + i / box;
+                for (int j = 0; j < size; j++) {
+                    pattern[i][j] = (shift + j) % size + 1;
+                }
+            }
+            SEED_GRIDS[box] = new int[][][] {pattern};
         }
-    }   
+    }
 
-    private static boolean fill(int[][] grid) {
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (grid[i][j] != 0) {
-                    continue;
-                }
-                for (int c = 1; c <= 9; c++) {
-                    if (!checkedPutIn(grid, i, j, c)) {
-                        continue;
-                    }
-                    if (fill(grid)) {
-                        return true;
-                    }
-                    grid[i][j] = 0;
-                }
-                return false;
+    // Picks a seed grid, then relabels the digits, shuffles bands and stacks and the rows
+    // and columns inside them, and transposes half of the time. None of that can break a
+    // solved grid.
+    static void shuffledSolution(int[][] grid, SplittableRandom r) {
+        int size = grid.length, box = boxOf(grid);
+        int[][][] seeds = SEED_GRIDS[box];
+        int[][] seed = seeds[seeds.length == 1 ? 0 : r.nextInt(seeds.length)];
+        int[] digits = shuffled(size, r), rows = shuffledLines(box, r), cols = shuffledLines(box, r);
+        boolean transpose = r.nextBoolean();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int val = transpose ? seed[cols[j]][rows[i]] : seed[rows[i]][cols[j]];
+                grid[i][j] = digits[val - 1] + 1;
             }
         }
-        return true;
     }
 
-    private static void clearNCells(int[][] grid) {
-        Random r = new Random();
-        int i, j;
-        int n = r.nextInt(60 - 32) + 32;
+    // rows (or columns) of a random band order, each band's lines in random order
+    private static int[] shuffledLines(int box, SplittableRandom r) {
+        int[] bands = shuffled(box, r), lines = new int[box * box];
+        for (int b = 0; b < box; b++) {
+            int[] inner = shuffled(box, r);
+            for (int k = 0; k < box; k++) {
+                lines[b * box + k] = bands[b] * box + inner[k];
+            }
+        }
+        return lines;
+    }
+
+    private static int[] shuffled(int n, SplittableRandom r) {
+        int[] values = new int[n];
         for (int k = 0; k < n; k++) {
-            do {
-                i = r.nextInt(9);
-                j = r.nextInt(9);
-            } while(grid[i][j] == 0);
-            grid[i][j] = 0;
+            values[k] = k;
+        }
+        for (int k = n - 1; k > 0; k--) {
+            int swap = r.nextInt(k + 1);
+            int aux = values[k];
+            values[k] = values[swap];
+            values[swap] = aux;
         }
-     }
+        return values;
+    }
+
+    // The grid and counter must be of the same size.
+    static void generateSudoku(int[][] grid, Difficulty d, SplittableRandom r, SolutionCounter counter) {
+        generateSudoku(grid, null, d, r, counter);
+    }
 
-    private static void generateSudoku(int[][] grid) {
-        for (int i = 0; i < 9; i += 3) {
-            fillRegion(grid, i, i);
+    // Also copies the solved grid into solution, unless it is null. 9x9 puzzles are
+    // graded and made again until LogicalSolver rates them as d; one graded too
+    // easy is first dug out further, up to d's most blanks.
+    private static void generateSudoku(int[][] grid, int[][] solution, Difficulty d, SplittableRandom r,
+                                       SolutionCounter counter) {
+        GenerationEvent event = FlightEvents.enabled() ? new GenerationEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        int size = grid.length;
+        LogicalSolver grader = size == 9 ? new LogicalSolver() : null;
+        long solutionTime = 0, digOutTime = 0, gradingTime = 0;
+        int blanks, attempts = 0;
+        boolean rated;
+        do {
+            long start = System.nanoTime();
+            shuffledSolution(grid, r);
+            if (solution != null) {
+                for (int i = 0; i < size; i++) {
+                    System.arraycopy(grid[i], 0, solution[i], 0, size);
+                }
+            }
+            long filled = System.nanoTime();
+            blanks = digOut(grid, r, d.randomBlanks(r, size * size), counter);
+            long dug = System.nanoTime();
+            solutionTime += filled - start;
+            digOutTime += dug - filled;
+            rated = grader == null || ++attempts == MAX_ATTEMPTS;
+            if (!rated) {
+                Difficulty got = Difficulty.forRating(grader.grade(grid).getRating());
+                if (got.compareTo(d) < 0 && blanks < d.getMaxBlanks()) {
+                    // the second dig out is taken back out of the grading time below
+                    long graded = System.nanoTime();
+                    blanks += digOut(grid, r, d.getMaxBlanks() - blanks, counter);
+                    long redug = System.nanoTime();
+                    digOutTime += redug - graded;
+                    gradingTime -= redug - graded;
+                    got = Difficulty.forRating(grader.grade(grid).getRating());
+                }
+                gradingTime += System.nanoTime() - dug;
+                rated = got == d;
+            }
+        } while (!rated);
+        SOLUTION_TIME.record(solutionTime);
+        DIG_OUT_TIME.record(digOutTime);
+        if (grader != null) {
+            GRADING_TIME.record(gradingTime);
+        }
+        PUZZLES.increment();
+        if (event != null && event.shouldCommit()) {
+            event.box = boxOf(grid);
+            event.difficulty = d.name();
+            event.blanks = blanks;
+            event.attempts = Math.max(1, attempts);
+            event.solutionTime = solutionTime;
+            event.digOutTime = digOutTime;
+            event.gradingTime = gradingTime;
+            event.commit();
         }
-        fill(grid);
-        clearNCells(grid);
     }
     
     public static SudokuLogic generateSudoku() {
-        int[][] grid = new int[9][9];
-        generateSudoku(grid);
-        SudokuLogic sudoku = new SudokuLogic();
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                sudoku.put(grid[i][j], i, j);
+        long seed = PuzzleId.freshSeed();
+        Difficulty[] all = Difficulty.values();
+        return generateSudoku(PuzzleId.of(seed, all[(int) Long.remainderUnsigned(mix(seed), all.length)]));
+    }
+
+    public static SudokuLogic generateSudoku(Difficulty d) {
+        return generateSudoku(PuzzleId.random(3, d));
+    }
+
+    // A puzzle of box x box boxes: 2 for 4x4, 3 for 9x9, 4 for 16x16, 5 for 25x25.
+    public static SudokuLogic generateSudoku(int box, Difficulty d) {
+        return generateSudoku(PuzzleId.random(box, d));
+    }
+
+    public static SudokuLogic generateSudoku(long seed, Difficulty d) {
+        return generateSudoku(PuzzleId.of(seed, d));
+    }
+
+    public static SudokuLogic generateSudoku(long seed, int box, Difficulty d) {
+        return generateSudoku(PuzzleId.of(seed, box, d));
+    }
+
+    // The same ID always gives the same puzzle, so an ID can stand in for the whole board.
+    public static SudokuLogic generateSudoku(PuzzleId id) {
+        int box = id.getBoxSize();
+        SudokuLogic sudoku = toSudoku(generateGrid(id, new SolutionCounter(box)));
+        sudoku.setPuzzleId(id);
+        return sudoku;
+    }
+
+    // Just the givens of generateSudoku(id), 0 for blanks.
+    public static int[][] generateGrid(PuzzleId id) {
+        return generateGrid(id, new SolutionCounter(id.getBoxSize()));
+    }
+
+    // The counter must be of the ID's box size.
+    static int[][] generateGrid(PuzzleId id, SolutionCounter counter) {
+        int size = id.getBoxSize() * id.getBoxSize();
+        int[][] grid = new int[size][size];
+        generateSudoku(grid, id.getDifficulty(), new SplittableRandom(id.getSeed()), counter);
+        return grid;
+    }
+
+    // A board with the digits of grid as its givens.
+    public static SudokuLogic toSudoku(int[][] grid) {
+        SudokuLogic sudoku = new SudokuLogic(boxOf(grid));
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid.length; j++) {
+                if (grid[i][j] != 0) {
+                    sudoku.putGiven(grid[i][j], i, j);
+                }
             }
         } 
         return sudoku;
     }
 
+    // Generates count puzzles on the common fork/join pool and hands them to
+    // sink, in order, on the calling thread. Puzzle k is the one of
+    // PuzzleId.of(puzzleSeed(seed, k), d), and at most a few chunks per core
+    // are held in memory.
+    public static void generateBatch(int count, Difficulty d, long seed, Consumer<int[][]> sink) {
+        generateBatch(count, d, seed, sink, ForkJoinPool.commonPool());
+    }
+
+    public static void generateBatch(int count, Difficulty d, long seed, Consumer<int[][]> sink,
+                                     ForkJoinPool pool) {
+        generateBatch(count, d, seed, sink, pool, null);
+    }
+
+    // Like above, also handing how many nanoseconds each puzzle took to
+    // latencies, on the calling thread, right before the puzzle itself.
+    public static void generateBatch(int count, Difficulty d, long seed, Consumer<int[][]> sink,
+                                     ForkJoinPool pool, LongConsumer latencies) {
+        generateBatch(count, d, seed, sink, pool, latencies, null);
+    }
+
+    // Like above, skipping every puzzle whose fingerprint is already in seen,
+    // that is every disguised copy of a puzzle handed out before, and adding
+    // the fingerprints of those handed out. Numbering goes on past count to
+    // make up for the skipped ones, so the output still depends only on
+    // (count, d, seed) and what seen held to begin with.
+    public static void generateBatch(int count, Difficulty d, long seed, Consumer<int[][]> sink,
+                                     ForkJoinPool pool, LongConsumer latencies, FingerprintSet seen) {
+        generateSolvedBatch(count, d, seed, (puzzle, solution) -> sink.accept(puzzle), pool, latencies, seen);
+    }
+
+    // Like above, handing each puzzle over together with its solution.
+    public static void generateSolvedBatch(int count, Difficulty d, long seed, BiConsumer<int[][], int[][]> sink,
+                                           ForkJoinPool pool, LongConsumer latencies, FingerprintSet seen) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        int inFlight = Math.max(2, pool.getParallelism() * 4);
+        ArrayDeque<CompletableFuture<Chunk>> pending = new ArrayDeque<>();
+        // puzzles to go through: count plus the skipped ones
+        long wanted = count, next = 0;
+        int emitted = 0;
+        while (emitted < count) {
+            while (next < wanted && pending.size() < inFlight) {
+                long first = next;
+                int size = (int) Math.min(BATCH_CHUNK, wanted - next);
+                next += size;
+                pending.add(CompletableFuture.supplyAsync(() -> generateChunk(first, size, d, seed, seen != null), pool));
+            }
+            Chunk done = pending.poll().join();
+            for (int k = 0; k < done.puzzles.length; k++) {
+                if (seen != null && !seen.add(done.fingerprints[k])) {
+                    wanted++;
+                    continue;
+                }
+                if (latencies != null) {
+                    latencies.accept(done.nanos[k]);
+                }
+                sink.accept(done.puzzles[k], done.solutions[k]);
+                emitted++;
+            }
+        }
+    }
+
+    private static final class Chunk {
+        final int[][][] puzzles;
+        final int[][][] solutions;
+        final long[] nanos;
+        final long[] fingerprints;
+
+        Chunk(int size, boolean fingerprinted) {
+            puzzles = new int[size][9][9];
+            solutions = new int[size][9][9];
+            nanos = new long[size];
+            fingerprints = fingerprinted ? new long[size] : null;
+        }
+    }
+
+    private static Chunk generateChunk(long first, int size, Difficulty d, long seed, boolean fingerprinted) {
+        SolutionCounter counter = new SolutionCounter();
+        Canonicalizer canon = fingerprinted ? new Canonicalizer() : null;
+        Chunk chunk = new Chunk(size, fingerprinted);
+        for (int k = 0; k < size; k++) {
+            long start = System.nanoTime();
+            int[][] puzzle = chunk.puzzles[k], solution = chunk.solutions[k];
+            SplittableRandom r = new SplittableRandom(puzzleSeed(seed, first + k));
+            generateSudoku(puzzle, solution, d, r, counter);
+            if (fingerprinted) {
+                chunk.fingerprints[k] = canon.fingerprint(puzzle, solution);
+            }
+            chunk.nanos[k] = System.nanoTime() - start;
+        }
+        return chunk;
+    }
+
+    // seed of the index-th puzzle of a batch
+    public static long puzzleSeed(long seed, long index) {
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    // stafford variant 13 of the murmur3 finalizer, so neighbouring inputs get unrelated outputs
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
 }
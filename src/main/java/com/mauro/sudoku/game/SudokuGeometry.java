@@ -0,0 +1,80 @@
+package com.mauro.sudoku.game;
+
+// Shape of a board made of box x box boxes, from 4x4 (box 2) up to 25x25
+// (box 5): which cells make up each unit and which cells see each other.
+// Units are numbered rows first, then columns, then boxes, and cells row by
+// row. Instances are shared, one per box size.
+final class SudokuGeometry {
+    static final int MIN_BOX = 2;
+    static final int MAX_BOX = 5;
+
+    private static final SudokuGeometry[] SHAPES = new SudokuGeometry[MAX_BOX + 1];
+
+    static {
+        for (int box = MIN_BOX; box <= MAX_BOX; box++) {
+            SHAPES[box] = new SudokuGeometry(box);
+        }
+    }
+
+    final int box, size, cells, units;
+    // bit (digit - 1) for every digit of the board
+    final long allDigits;
+    final int[][] unitCells;
+    // row, column and box unit of each cell
+    final int[][] cellUnits;
+    // the other cells sharing a unit with each cell, in increasing order
+    final int[][] peers;
+
+    private SudokuGeometry(int box) {
+        this.box = box;
+        size = box * box;
+        cells = size * size;
+        units = 3 * size;
+        allDigits = (1L << size) - 1;
+        unitCells = new int[units][size];
+        cellUnits = new int[cells][3];
+        for (int k = 0; k < cells; k++) {
+            int i = k / size, j = k % size, b = boxOf(i, j);
+            cellUnits[k][0] = i;
+            cellUnits[k][1] = size + j;
+            cellUnits[k][2] = 2 * size + b;
+            unitCells[i][j] = k;
+            unitCells[size + j][i] = k;
+            unitCells[2 * size + b][(i % box) * box + j % box] = k;
+        }
+        // row and column peers, plus the box cells in neither of them
+        int peerCount = 2 * (size - 1) + (box - 1) * (box - 1);
+        peers = new int[cells][peerCount];
+        boolean[] sees = new boolean[cells];
+        for (int k = 0; k < cells; k++) {
+            for (int u : cellUnits[k]) {
+                for (int other : unitCells[u]) {
+                    sees[other] = other != k;
+                }
+            }
+            int n = 0;
+            for (int other = 0; other < cells; other++) {
+                if (sees[other]) {
+                    peers[k][n++] = other;
+                    sees[other] = false;
+                }
+            }
+        }
+    }
+
+    static SudokuGeometry of(int box) {
+        if (box < MIN_BOX || box > MAX_BOX) {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX + " and " + MAX_BOX + ": " + box);
+        }
+        return SHAPES[box];
+    }
+
+    int boxOf(int i, int j) {
+        return (i / box) * box + j / box;
+    }
+
+    // bits needed to store any digit of the board, or 0 for an empty cell
+    int valueBits() {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+}
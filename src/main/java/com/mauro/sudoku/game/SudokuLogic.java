@@ -1,19 +1,65 @@
 package com.mauro.sudoku.game;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public class SudokuLogic {
-    private static final int ROWS_COLS = 27;
-    private static final int SMALL_ROWS_COLS = 9;
+    // the board is size x size cells; every cell shows its notes as a
+    // box x box block, which makes the rowsCols x rowsCols grid of getValueIn
+    private final int rowsCols;
+    private final int size;
 
-    private int[][] gameGrid;
-    private int[][] smallAnswersGrid;
-    private boolean[][] definitiveAnswersGrid;
+    private final SudokuGeometry shape;
+    private final int box;
+    // the answer (0 when empty) and a note mask per cell, as narrow as the board allows
+    private PackedBoard board;
+    private SudokuConstraints constraints;
     private boolean playerIsTakingNotes, disabled;
+    private boolean autoNotes, autoRemoveNotes;
+    // one bit per cell holding a clue of the original puzzle
+    private final long[] givens;
+    // created on the first move so that boards nobody plays stay small
+    private MoveLog moves;
+    private long[] undoBuffer;
+    // where the puzzle came from, null for boards that weren't generated from a seed
+    private PuzzleId puzzleId;
+    // created by the first hint; ruledOut keeps what earlier hints eliminated,
+    // which holds for as long as no answer is taken back
+    private LogicalSolver hints;
+    private long[] ruledOut;
 
     public SudokuLogic() {
+        this(3);
+    }
+
+    // A board of box x box boxes: 2 for 4x4, 3 for the classic 9x9, up to 5 for 25x25.
+    public SudokuLogic(int box) {
+        shape = SudokuGeometry.of(box);
+        this.box = box;
+        size = shape.size;
+        rowsCols = size * box;
         playerIsTakingNotes = disabled = false;
-        smallAnswersGrid = new int[SMALL_ROWS_COLS][SMALL_ROWS_COLS];
-        gameGrid = new int[ROWS_COLS][ROWS_COLS];
-        definitiveAnswersGrid = new boolean[ROWS_COLS][ROWS_COLS];
+        autoNotes = autoRemoveNotes = false;
+        board = new PackedBoard(shape.cells, shape.valueBits(), shape.size);
+        constraints = new SudokuConstraints(shape);
+        givens = new long[(shape.cells + 63) / 64];
+    }
+
+    public int getBoxSize() {
+        return box;
+    }
+
+    // rows, columns and digits of the board
+    public int getSize() {
+        return size;
+    }
+
+    public PuzzleId getPuzzleId() {
+        return puzzleId;
+    }
+
+    void setPuzzleId(PuzzleId id) {
+        puzzleId = id;
     }
 
     public boolean disable() {
@@ -32,232 +78,466 @@ public class SudokuLogic {
         return playerIsTakingNotes;
     }
 
+    // While on, the notes of every empty cell are kept equal to its candidates.
+    public boolean setAutoNotes(boolean on) {
+        if (disabled) {
+            return autoNotes;
+        }
+        autoNotes = on;
+        if (on) {
+            fillNotesWithCandidates();
+        }
+        return autoNotes;
+    }
+
+    public boolean isAutoNotes() {
+        return autoNotes;
+    }
+
+    // While on, placing an answer removes that digit from the notes of its row, column and box.
+    public boolean setAutoRemoveNotes(boolean on) {
+        return autoRemoveNotes = on;
+    }
+
+    public boolean isAutoRemovingNotes() {
+        return autoRemoveNotes;
+    }
+
+    // Bit n - 1 is set when n can go in cell (i, j); 0 for cells holding an answer.
+    public long getCandidates(int i, int j) {
+        if (!validIndex(i, j) || board.value(cellOf(i, j)) != 0) {
+            return 0;
+        }
+        return constraints.candidates(i, j);
+    }
+
+    public void fillNotesWithCandidates() {
+        if (disabled) {
+            return;
+        }
+        beginMove();
+        for (int cell = 0; cell < shape.cells; cell++) {
+            syncNotes(cell);
+        }
+    }
+
     public boolean hasDefinitiveAnswerIn(int i, int j) {
-        if (i < 0 || i >= ROWS_COLS || j < 0 || j >= ROWS_COLS) {
+        if (i < 0 || i >= rowsCols || j < 0 || j >= rowsCols) {
             return false;
         }
-        return definitiveAnswersGrid[i][j];
+        return board.value(cellOf(i / box, j / box)) != 0;
     }
 
-    // i and j may go all the way up to 26
+    // i and j may go all the way up to 26 on a 9x9 board. Every 3x3 block of that grid
+    // is one cell: it holds the answer everywhere, or note n at position n - 1
     public int getValueIn(int i, int j) {
-        if (i < 0 || i >= ROWS_COLS || j < 0 || j >= ROWS_COLS) {
+        if (i < 0 || i >= rowsCols || j < 0 || j >= rowsCols) {
             return -1;
         }
-        return gameGrid[i][j];
+        int cell = cellOf(i / box, j / box);
+        int val = board.value(cell);
+        if (val != 0) {
+            return val;
+        }
+        int note = (i % box) * box + j % box;
+        return (board.notes(cell) & (1L << note)) != 0 ? note + 1 : 0;
     }
 
     public boolean put(int val, int i, int j) {
         if (disabled) {
             return false;
         }
-        if (!validIndex(i, j) || val < 1 || val > 9) {
+        if (!validIndex(i, j) || val < 1 || val > size || isGiven(cellOf(i, j))) {
             return false;
         }
-        if (!playerIsTakingNotes) {
-            smallAnswersGrid[i][j] = val;
+        int cell = cellOf(i, j);
+        if (playerIsTakingNotes) {
+            if (board.value(cell) != 0) {
+                return false;
+            }
+            beginMove();
+            writeNotes(cell, board.notes(cell) | (1L << (val - 1)));
+            return true;
         }
-        return putAnswerOrNote(val, i * 3, j * 3);
+        beginMove();
+        setAnswer(val, i, j);
+        return true;
     }
 
     public boolean delete(int i, int j) {
         if (disabled) {
             return false;
         }
-        if (!validIndex(i, j) || playerIsTakingNotes) {
+        if (!validIndex(i, j) || playerIsTakingNotes || isGiven(cellOf(i, j))) {
             return false;
         }
-        smallAnswersGrid[i][j] = 0;
-        return deleteAnswer(i * 3, j * 3);
+        beginMove();
+        setAnswer(0, i, j);
+        return true;
     }
 
     public boolean deleteNote(int val, int i, int j) {
         if (disabled) {
             return false;
         }
-        if (!validIndex(i, j) || !playerIsTakingNotes || val < 1 || val > 9) {
+        if (!validIndex(i, j) || !playerIsTakingNotes || val < 1 || val > size) {
             return false;
         }
-        return deleteNoteAt(val, i * 3, j * 3);
+        int cell = cellOf(i, j);
+        if (board.value(cell) != 0) {
+            return false;
+        }
+        beginMove();
+        writeNotes(cell, board.notes(cell) & ~(1L << (val - 1)));
+        return true;
     }
 
-    public boolean wrongDigitExistsIn(int i, int j) {
-        return wrongDigitInRow(i) || wrongDigitInCol(j) || wrongDigitInGroup(i, j);
+    // Takes back the last move, including notes an assist changed along with it.
+    public boolean undo() {
+        if (disabled || moves == null || !moves.canUndo()) {
+            return false;
+        }
+        int n = moves.undo(undoBuffer);
+        for (int k = 0; k < n; k++) {
+            long entry = undoBuffer[k];
+            apply(MoveLog.cellOf(entry), MoveLog.kindOf(entry), MoveLog.oldValueOf(entry));
+        }
+        return true;
     }
 
-    public boolean isValidSudoku() {
-        for (int i = 0; i < SMALL_ROWS_COLS; i++) {
-            if (wrongDigitInCol(i) || wrongDigitInRow(i)) {
-                return false;
-            }
+    public boolean redo() {
+        if (disabled || moves == null || !moves.canRedo()) {
+            return false;
         }
-        return !wrongDigitInGroups();
+        int n = moves.redo(undoBuffer);
+        for (int k = 0; k < n; k++) {
+            long entry = undoBuffer[k];
+            apply(MoveLog.cellOf(entry), MoveLog.kindOf(entry), MoveLog.newValueOf(entry));
+        }
+        return true;
     }
 
-    public boolean hasEmptyCells() {
-        for (int arr[] : smallAnswersGrid) {
-            for (int val : arr) {
-                if (val == 0) {
-                    return true;
-                }
-            }
+    public boolean canUndo() {
+        return moves != null && moves.canUndo();
+    }
+
+    public boolean canRedo() {
+        return moves != null && moves.canRedo();
+    }
+
+    // Forgets every move, so what the board holds now is where undo stops.
+    public void clearHistory() {
+        moves = null;
+    }
+
+    // Bytes needed by writeMoveLog.
+    public int moveLogSize() {
+        return moves == null ? 8 : moves.serializedSize();
+    }
+
+    public void writeMoveLog(ByteBuffer out) {
+        if (moves == null) {
+            out.putInt(0).putInt(0);
+        } else {
+            moves.write(out);
         }
-        return false;
     }
 
-    private boolean wrongDigitInRow(int i) {
-        boolean check[] = new boolean[9];
-        for (int j = 0; j < SMALL_ROWS_COLS; j++) {
-            if (smallAnswersGrid[i][j] == 0) {
-                continue;
-            }
-            if (check[smallAnswersGrid[i][j] - 1]) {
-                return true;
-            }
-            check[smallAnswersGrid[i][j] - 1] = true;
+    // Replaces the history with one written by writeMoveLog. The board is
+    // left as it is, so it must be in the state the log was written in.
+    public void readMoveLog(ByteBuffer in) {
+        readMoveLog(in, false);
+    }
+
+    void readMoveLog(ByteBuffer in, boolean narrow) {
+        moves = MoveLog.read(in, narrow, size);
+        undoBuffer = new long[MoveLog.maxMoveEntries(shape.cells)];
+    }
+
+    // Places a clue of the puzzle. Clues aren't part of the history and can't be changed.
+    void putGiven(int val, int i, int j) {
+        int cell = cellOf(i, j);
+        applyAnswer(cell, val);
+        givens[cell >>> 6] |= 1L << (cell & 63);
+    }
+
+    long givenBits(int word) {
+        return givens[word];
+    }
+
+    int answerAt(int cell) {
+        return board.value(cell);
+    }
+
+    long notesAt(int cell) {
+        return board.notes(cell);
+    }
+
+    // Sets up a board read from a snapshot without recording anything.
+    void restore(long[] givenBits, int[] answers, long[] notes, boolean takingNotes,
+                 boolean auto, boolean autoRemove, boolean disable) {
+        System.arraycopy(givenBits, 0, givens, 0, givens.length);
+        for (int cell = 0; cell < answers.length; cell++) {
+            applyAnswer(cell, answers[cell]);
+            board.setNotes(cell, notes[cell]);
         }
-        return false;
+        playerIsTakingNotes = takingNotes;
+        autoNotes = auto;
+        autoRemoveNotes = autoRemove;
+        disabled = disable;
     }
 
-    private boolean wrongDigitInCol(int j) {
-        boolean check[] = new boolean[9];
-        for (int i = 0; i < SMALL_ROWS_COLS; i++) {
-            if (smallAnswersGrid[i][j] == 0) {
-                continue;
+    public boolean isGiven(int i, int j) {
+        return validIndex(i, j) && isGiven(cellOf(i, j));
+    }
+
+    // Whether the answer in (i, j) is repeated somewhere in its row, column or box.
+    public boolean isConflicting(int i, int j) {
+        return validIndex(i, j) && constraints.isConflicting(cellOf(i, j));
+    }
+
+    // Every conflicting cell as a bit mask, 81 bits on a 9x9 board: cell k = i * size + j
+    // is bit k % 64 of out[k / 64]. Kept up to date as answers come and go, so this costs nothing.
+    public void getConflicts(long[] out) {
+        for (int w = 0; w < givens.length; w++) {
+            out[w] = constraints.conflictBits(w);
+        }
+    }
+
+    public boolean wrongDigitExistsIn(int i, int j) {
+        if (!validIndex(i, j)) {
+            return false;
+        }
+        return constraints.hasConflictAround(i, j);
+    }
+
+    public boolean isValidSudoku() {
+        return constraints.isValid();
+    }
+
+    // The next logical step from the current answers, worked out from the live
+    // candidates rather than by solving the board again. When the techniques run
+    // out the step is read off the solution and marked GUESSING. Returns null when
+    // the board is full, wrong, or not 9x9.
+    public Hint hint() {
+        if (box != 3 || constraints.isComplete() || !constraints.isValid()) {
+            return null;
+        }
+        int cells = shape.cells;
+        if (hints == null) {
+            hints = new LogicalSolver();
+            ruledOut = new long[cells];
+        }
+        int[] answers = new int[cells], candidates = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            answers[cell] = board.value(cell);
+            candidates[cell] = (int) (constraints.candidates(cell / size, cell % size) & ~ruledOut[cell]);
+        }
+        hints.load(answers, candidates);
+        Hint hint = hints.hint();
+        if (hint == null) {
+            return guess(answers, candidates);
+        }
+        if (!hint.isPlacement()) {
+            for (int cell = 0; cell < cells; cell++) {
+                ruledOut[cell] |= hint.getRemoved(cell);
             }
-            if (check[smallAnswersGrid[i][j] - 1]) {
-                return true;
+        }
+        return hint;
+    }
+
+    // the solution's digit for the empty cell with the fewest candidates
+    private Hint guess(int[] answers, int[] candidates) {
+        int[][] grid = new int[size][size];
+        int best = -1;
+        for (int cell = 0; cell < answers.length; cell++) {
+            grid[cell / size][cell % size] = answers[cell];
+            if (answers[cell] == 0
+                    && (best < 0 || Integer.bitCount(candidates[cell]) < Integer.bitCount(candidates[best]))) {
+                best = cell;
             }
-            check[smallAnswersGrid[i][j] - 1] = true;
         }
-        return false;
+        if (best < 0 || !new SudokuSolver(box).solve(grid)) {
+            return null;
+        }
+        int i = best / size, j = best % size;
+        return Hint.placement(Technique.GUESSING, i, j, grid[i][j], new int[] {best});
     }
 
-    private boolean wrongDigitInGroup(int i, int j) {
-        boolean check[] = new boolean[9];
-        i = (i / 3) * 3;
-        j = (j / 3) * 3;
-        for (int k = i; k < i + 3; k++) {
-            for (int l = j; l < j + 3; l++) {
-                if (smallAnswersGrid[k][l] == 0) {
-                    continue;
+    // Marks every cell of grid whose digit repeats in its row, column or box in out, laid
+    // out like getConflicts, and returns whether there were any. Needs no board and
+    // allocates nothing, for checking many submitted grids.
+    public static boolean findConflicts(int[][] grid, long[] out) {
+        SudokuGeometry shape = SudokuGeometry.of(SudokuGenerator.boxOf(grid));
+        int size = shape.size;
+        Arrays.fill(out, 0, (shape.cells + 63) / 64, 0);
+        boolean any = false;
+        for (int u = 0; u < shape.units; u++) {
+            long once = 0, twice = 0;
+            for (int cell : shape.unitCells[u]) {
+                int val = grid[cell / size][cell % size];
+                if (val < 0 || val > size) {
+                    throw new IllegalArgumentException("Not a digit of a " + size + "x" + size + " board: " + val);
                 }
-                if (check[smallAnswersGrid[k][l] - 1]) {
-                    return true;
+                long bit = val == 0 ? 0 : 1L << (val - 1);
+                twice |= once & bit;
+                once |= bit;
+            }
+            if (twice == 0) {
+                continue;
+            }
+            any = true;
+            for (int cell : shape.unitCells[u]) {
+                int val = grid[cell / size][cell % size];
+                if (val != 0 && (twice & 1L << (val - 1)) != 0) {
+                    out[cell >>> 6] |= 1L << (cell & 63);
                 }
-                check[smallAnswersGrid[k][l] - 1] = true;
             }
         }
-        return false;
+        return any;
     }
 
-    private boolean wrongDigitInGroups() {
-        boolean[] check = new boolean[9];
-        for (int i = 0; i < 27; i += 3) {
-            for (int j = 0; j < 9; j++) {
-                int auxi = 3 * (i / 9) + (j / 3);               //yes
-                int auxj = (i % 9) + (j % 3);                   //yes too
-                if (smallAnswersGrid[auxi][auxj] == 0) {
-                    continue;
-                }
-                if (check[smallAnswersGrid[auxi][auxj] - 1]) {
-                    return true;
-                }
-                check[smallAnswersGrid[auxi][auxj] - 1] = true;
+    public boolean hasEmptyCells() {
+        return !constraints.isComplete();
+    }
+
+    private void setAnswer(int val, int i, int j) {
+        int cell = cellOf(i, j);
+        int old = board.value(cell);
+        if (old == val) {
+            return;
+        }
+        applyAnswer(cell, val);
+        record(cell, MoveLog.KIND_ANSWER, old, val);
+        if (val != 0) {
+            writeNotes(cell, 0);
+        }
+        if (autoNotes) {
+            syncNotes(cell);
+            for (int p : shape.peers[cell]) {
+                syncNotes(p);
             }
-            for (int k = 0; k < 9; k++) {
-                check[k] = false;
+        } else if (autoRemoveNotes && val != 0) {
+            long bit = 1L << (val - 1);
+            for (int p : shape.peers[cell]) {
+                writeNotes(p, board.notes(p) & ~bit);
             }
         }
-        return false;
     }
 
-    private boolean validIndex(int i, int j) {
-        return i >= 0 && i < SMALL_ROWS_COLS
-            && j >= 0 && j < SMALL_ROWS_COLS;
+    private void syncNotes(int cell) {
+        if (board.value(cell) == 0) {
+            writeNotes(cell, constraints.candidates(cell / size, cell % size));
+        }
     }
 
-    private boolean putAnswerOrNote(int val, int i, int j) {
-        if (playerIsTakingNotes) {
-            if (definitiveAnswersGrid[i][j]) {
-                return false;
-            }
-            gameGrid[i + (val - 1) / 3][j + (val - 1) % 3] = val;
-            return true;
+    private void writeNotes(int cell, long mask) {
+        long old = board.notes(cell);
+        if (old != mask) {
+            board.setNotes(cell, mask);
+            record(cell, MoveLog.KIND_NOTES, old, mask);
         }
-        for (int k = i; k < i + 3; k++) {
-            for (int l = j; l < j + 3; l++) {
-                gameGrid[k][l] = val;
-                definitiveAnswersGrid[k][l] = true;
+    }
+
+    private void applyAnswer(int cell, int val) {
+        int i = cell / size, j = cell % size;
+        int old = board.value(cell);
+        if (old != 0) {
+            constraints.remove(old, i, j);
+            if (ruledOut != null) {
+                Arrays.fill(ruledOut, 0);
             }
         }
-        return true;
+        if (val != 0) {
+            constraints.place(val, i, j);
+        }
+        board.setValue(cell, val);
     }
 
-    private boolean deleteAnswer(int i, int j) {
-        if (playerIsTakingNotes) {
-            return false;
+    private void apply(int cell, int kind, long value) {
+        if (kind == MoveLog.KIND_ANSWER) {
+            applyAnswer(cell, (int) value);
+        } else {
+            board.setNotes(cell, value);
         }
-        for (int k = i; k < i + 3; k++) {
-            for (int l = j; l < j + 3; l++) {
-                gameGrid[k][l] = 0;
-                definitiveAnswersGrid[k][l] = false;
-            }
+    }
+
+    private void beginMove() {
+        if (moves == null) {
+            moves = new MoveLog();
+            undoBuffer = new long[MoveLog.maxMoveEntries(shape.cells)];
         }
-        return true;
+        moves.beginMove();
     }
 
-    private boolean deleteNoteAt(int val, int i, int j) {
-        int row = i + (val - 1) / 3;
-        int col = j + (val - 1) % 3;
-        if (!playerIsTakingNotes || definitiveAnswersGrid[row][col]) {
-            return false;
+    private void record(int cell, int kind, long oldValue, long newValue) {
+        if (moves != null) {
+            moves.record(cell, kind, oldValue, newValue);
         }
-        gameGrid[row][col] = 0;
-        return true;
+    }
+
+    private boolean isGiven(int cell) {
+        return (givens[cell >>> 6] & (1L << (cell & 63))) != 0;
+    }
+
+    private int cellOf(int i, int j) {
+        return i * size + j;
+    }
+
+    private boolean validIndex(int i, int j) {
+        return i >= 0 && i < size
+            && j >= 0 && j < size;
     }
 
     public String smallGridString() {
         StringBuilder str = new StringBuilder();
-        for (int i = 0; i < SMALL_ROWS_COLS; i++) {
+        for (int i = 0; i < size; i++) {
             if (i != 0) {
-                if (i % 3 == 0) {
+                if (i % box == 0) {
                     str.append("\n");
                 }
             }
-            for (int j = 0; j < SMALL_ROWS_COLS; j++) {
+            for (int j = 0; j < size; j++) {
                 if (j != 0) {
-                    if (j % 3 == 0) {
+                    if (j % box == 0) {
                         str.append(" ");
                     }
                 }
-                str.append(smallAnswersGrid[i][j]);
+                appendDigit(str, board.value(cellOf(i, j)));
             } 
             str.append("\n");
         }
         return str.toString();
     }
 
+    // digits past 9 need two columns, so on big boards every digit gets a column more
+    private void appendDigit(StringBuilder str, int val) {
+        if (size > 9) {
+            str.append(val < 10 ? "  " : " ");
+        }
+        str.append(val);
+    }
+
     @Override
     public String toString() {
         StringBuilder str = new StringBuilder();
-        for (int i = 0; i < ROWS_COLS; i++) {
+        for (int i = 0; i < rowsCols; i++) {
             if (i != 0) {
-                if (i % 9 == 0) {
+                if (i % size == 0) {
                     str.append("\n\n\n");
-                } else if (i % 3 == 0) {
+                } else if (i % box == 0) {
                     str.append("\n");
                 }
             }
-            for (int j = 0; j < ROWS_COLS; j++) {
+            for (int j = 0; j < rowsCols; j++) {
                 if (j != 0) {
-                    if (j % 9 == 0) {
+                    if (j % size == 0) {
                         str.append("   ");
-                    } else if (j % 3 == 0) {
+                    } else if (j % box == 0) {
                         str.append(" ");
                     }
                 }
-                str.append(gameGrid[i][j]);
+                appendDigit(str, getValueIn(i, j));
             } 
             str.append("\n");
         }
@@ -0,0 +1,260 @@
+package com.mauro.sudoku.game;
+
+import com.mauro.sudoku.metrics.Metrics;
+
+// Exact cover solver (Knuth's Algorithm X with dancing links) for grids of
+// box x box boxes, 9x9 by default. The links live in flat int arrays and the
+// matrix is built once per instance, so an instance can be reused for any
+// number of grids of its size. Not thread safe.
+public final class SudokuSolver {
+    private static final int ROOT = 0;
+    private static final Metrics.Timer RUNS = Metrics.global().timer("solver.run");
+    private static final Metrics.Counter NODES = Metrics.global().counter("solver.nodes");
+    private static final Metrics.Counter BACKTRACKS = Metrics.global().counter("solver.backtracks");
+
+    private final int digits;
+    private final int box;
+    private final int cells;
+    private final int columns;
+    private final int rows;
+
+    private final int[] left, right, up, down, column, rowOf;
+    private final int[] size;
+    private final int[] firstNode;
+    private final boolean[] covered;
+    private final int[] solution;
+    private final int[] givens;
+
+    private int[][] target;
+    private long nodes, backtracks;
+    private int found, limit;
+
+    public SudokuSolver() {
+        this(3);
+    }
+
+    public SudokuSolver(int box) {
+        SudokuGeometry shape = SudokuGeometry.of(box);
+        digits = shape.size;
+        this.box = box;
+        cells = shape.cells;
+        columns = 4 * cells;
+        rows = cells * digits;
+        int total = 1 + columns + rows * 4;
+        left = new int[total];
+        right = new int[total];
+        up = new int[total];
+        down = new int[total];
+        column = new int[total];
+        rowOf = new int[total];
+        size = new int[columns + 1];
+        firstNode = new int[rows];
+        covered = new boolean[columns + 1];
+        solution = new int[cells];
+        givens = new int[cells];
+        build();
+    }
+
+    // Solves the grid in place. Returns false, leaving the grid untouched, if there is no solution.
+    public boolean solve(int[][] grid) {
+        return run(grid, 1, grid) > 0;
+    }
+
+    // Counts solutions, stopping as soon as limit of them have been found.
+    public int countSolutions(int[][] grid, int limit) {
+        return run(grid, limit, null);
+    }
+
+    public boolean hasUniqueSolution(int[][] grid) {
+        return countSolutions(grid, 2) == 1;
+    }
+
+    // Search nodes visited by the last solve or count.
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    // Dead ends hit by the last solve or count: constraints left without a candidate.
+    public long getBacktrackCount() {
+        return backtracks;
+    }
+
+    private int run(int[][] grid, int limit, int[][] target) {
+        SolverEvent event = FlightEvents.enabled() ? new SolverEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        long start = System.nanoTime();
+        this.limit = limit;
+        this.target = target;
+        nodes = backtracks = 0;
+        found = 0;
+        int placed = 0;
+        boolean consistent = true;
+        for (int i = 0; i < digits && consistent; i++) {
+            for (int j = 0; j < digits; j++) {
+                int val = grid[i][j];
+                if (val == 0) {
+                    continue;
+                }
+                if (val < 1 || val > digits) {
+                    consistent = false;
+                    break;
+                }
+                int row = (i * digits + j) * digits + val - 1;
+                if (!select(row)) {
+                    consistent = false;
+                    break;
+                }
+                givens[placed++] = row;
+            }
+        }
+        if (consistent) {
+            search(0);
+        }
+        while (placed > 0) {
+            deselect(givens[--placed]);
+        }
+        this.target = null;
+        RUNS.recordSince(start);
+        NODES.add(nodes);
+        BACKTRACKS.add(backtracks);
+        if (event != null && event.shouldCommit()) {
+            event.box = box;
+            event.nodes = nodes;
+            event.backtracks = backtracks;
+            event.solutions = found;
+            event.commit();
+        }
+        return found;
+    }
+
+    private boolean search(int depth) {
+        if (right[ROOT] == ROOT) {
+            if (found++ == 0 && target != null) {
+                for (int k = 0; k < depth; k++) {
+                    int row = solution[k];
+                    target[row / digits / digits][(row / digits) % digits] = row % digits + 1;
+                }
+            }
+            return found >= limit;
+        }
+        int best = right[ROOT];
+        for (int c = right[best]; c != ROOT; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+                if (size[c] <= 1) {
+                    break;
+                }
+            }
+        }
+        if (size[best] == 0) {
+            backtracks++;
+            return false;
+        }
+        cover(best);
+        boolean done = false;
+        for (int r = down[best]; r != best && !done; r = down[r]) {
+            nodes++;
+            solution[depth] = rowOf[r];
+            for (int n = right[r]; n != r; n = right[n]) {
+                cover(column[n]);
+            }
+            done = search(depth + 1);
+            for (int n = left[r]; n != r; n = left[n]) {
+                uncover(column[n]);
+            }
+        }
+        uncover(best);
+        return done;
+    }
+
+    // Removes a given's columns from the matrix; fails if one of them is already covered.
+    private boolean select(int row) {
+        int first = firstNode[row];
+        int n = first;
+        do {
+            if (covered[column[n]]) {
+                for (int m = left[n]; n != first && m != left[first]; m = left[m]) {
+                    uncover(column[m]);
+                }
+                return false;
+            }
+            cover(column[n]);
+            n = right[n];
+        } while (n != first);
+        return true;
+    }
+
+    private void deselect(int row) {
+        int first = firstNode[row];
+        int n = left[first];
+        do {
+            uncover(column[n]);
+            n = left[n];
+        } while (n != left[first]);
+    }
+
+    private void cover(int c) {
+        covered[c] = true;
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                size[column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+        covered[c] = false;
+    }
+
+    private void build() {
+        for (int c = 0; c <= columns; c++) {
+            left[c] = c == 0 ? columns : c - 1;
+            right[c] = c == columns ? 0 : c + 1;
+            up[c] = down[c] = c;
+            column[c] = c;
+        }
+        int node = columns + 1;
+        int[] cols = new int[4];
+        for (int i = 0; i < digits; i++) {
+            for (int j = 0; j < digits; j++) {
+                int b = (i / box) * box + j / box;
+                for (int d = 0; d < digits; d++) {
+                    int row = (i * digits + j) * digits + d;
+                    cols[0] = 1 + i * digits + j;
+                    cols[1] = 1 + cells + i * digits + d;
+                    cols[2] = 1 + 2 * cells + j * digits + d;
+                    cols[3] = 1 + 3 * cells + b * digits + d;
+                    firstNode[row] = node;
+                    for (int k = 0; k < 4; k++) {
+                        int c = cols[k];
+                        column[node] = c;
+                        rowOf[node] = row;
+                        up[node] = up[c];
+                        down[node] = c;
+                        down[up[c]] = node;
+                        up[c] = node;
+                        size[c]++;
+                        left[node] = k == 0 ? node + 3 : node - 1;
+                        right[node] = k == 3 ? node - 3 : node + 1;
+                        node++;
+                    }
+                }
+            }
+        }
+    }
+}
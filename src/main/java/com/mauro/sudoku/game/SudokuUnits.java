@@ -0,0 +1,30 @@
+package com.mauro.sudoku.game;
+
+// Lookup tables describing the 9x9 board: which cells make up each unit and
+// which cells see each other. Units are rows (0-8), columns (9-17), boxes (18-26).
+final class SudokuUnits {
+    private static final SudokuGeometry CLASSIC = SudokuGeometry.of(3);
+
+    static final int SIZE = CLASSIC.size;
+    static final int CELLS = CLASSIC.cells;
+    static final int UNITS = CLASSIC.units;
+    static final int ALL_DIGITS = (int) CLASSIC.allDigits;
+
+    static final int[][] UNIT_CELLS = CLASSIC.unitCells;
+    // row, column and box unit of each cell
+    static final int[][] CELL_UNITS = CLASSIC.cellUnits;
+    // the 20 other cells sharing a unit with each cell
+    static final int[][] PEERS = CLASSIC.peers;
+    static final boolean[][] SEES = new boolean[CELLS][CELLS];
+
+    static {
+        for (int k = 0; k < CELLS; k++) {
+            for (int other : PEERS[k]) {
+                SEES[k][other] = true;
+            }
+        }
+    }
+
+    private SudokuUnits() {
+    }
+}
@@ -0,0 +1,38 @@
+package com.mauro.sudoku.game;
+
+// Solving techniques in the order LogicalSolver tries them. Scores follow
+// the usual Sudoku Explainer scale so ratings are comparable with other tools.
+public enum Technique {
+    HIDDEN_SINGLE("Hidden single", 1.5),
+    NAKED_SINGLE("Naked single", 2.3),
+    POINTING("Pointing candidates", 2.6),
+    CLAIMING("Claiming candidates", 2.8),
+    NAKED_PAIR("Naked pair", 3.0),
+    X_WING("X-Wing", 3.2),
+    HIDDEN_PAIR("Hidden pair", 3.4),
+    NAKED_TRIPLE("Naked triple", 3.6),
+    SWORDFISH("Swordfish", 3.8),
+    HIDDEN_TRIPLE("Hidden triple", 4.0),
+    XY_WING("XY-Wing", 4.2),
+    NAKED_QUAD("Naked quad", 5.0),
+    JELLYFISH("Jellyfish", 5.2),
+    HIDDEN_QUAD("Hidden quad", 5.4),
+    // none of the above applies, the rest has to be found by trial and error
+    GUESSING("Guessing", 10.0);
+
+    private final String label;
+    private final double score;
+
+    private Technique(String label, double score) {
+        this.label = label;
+        this.score = score;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mauro.sudoku.io;
+
+import java.nio.ByteBuffer;
+
+// Dense encoding: one nibble per cell, row by row, two cells per byte with the
+// first cell in the high nibble. 81 cells take 41 bytes, the last low nibble is zero.
+public final class BinaryCodec {
+    public static final int LENGTH = 41;
+
+    private BinaryCodec() {
+    }
+
+    public static void encode(int[][] grid, ByteBuffer out) {
+        int pending = -1;
+        for (int i = 0; i < 9; i++) {
+            int[] row = grid[i];
+            for (int j = 0; j < 9; j++) {
+                int val = row[j] & 0xF;
+                if (pending < 0) {
+                    pending = val << 4;
+                } else {
+                    out.put((byte) (pending | val));
+                    pending = -1;
+                }
+            }
+        }
+        out.put((byte) pending);
+    }
+
+    // Returns false if a nibble does not hold 0-9.
+    public static boolean decode(ByteBuffer in, int[][] grid) {
+        if (in.remaining() < LENGTH) {
+            return false;
+        }
+        int b = 0;
+        for (int k = 0; k < 81; k++) {
+            int val;
+            if ((k & 1) == 0) {
+                b = in.get();
+                val = (b >>> 4) & 0xF;
+            } else {
+                val = b & 0xF;
+            }
+            if (val > 9) {
+                return false;
+            }
+            grid[k / 9][k % 9] = val;
+        }
+        return true;
+    }
+
+    // Same as decode(in, grid) but reads at an absolute offset, leaving the position alone.
+    public static boolean decode(ByteBuffer in, int offset, int[][] grid) {
+        if (offset < 0 || in.limit() - offset < LENGTH) {
+            return false;
+        }
+        for (int k = 0; k < 81; k += 2) {
+            int b = in.get(offset + k / 2);
+            int high = (b >>> 4) & 0xF;
+            int low = b & 0xF;
+            if (high > 9 || low > 9) {
+                return false;
+            }
+            grid[k / 9][k % 9] = high;
+            if (k + 1 < 81) {
+                grid[(k + 1) / 9][(k + 1) % 9] = low;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package com.mauro.sudoku.io;
+
+import java.nio.ByteBuffer;
+
+// The usual one-puzzle-per-line text format: 81 characters read row by row,
+// digits for givens and '0' or '.' for blanks. A line may carry the solution
+// after a ',', ';', ' ' or tab separator.
+public final class LineCodec {
+    public static final int LENGTH = 81;
+
+    private LineCodec() {
+    }
+
+    // Writes the 81 characters of the grid, blanks as '.', without a line break.
+    public static void encode(int[][] grid, ByteBuffer out) {
+        for (int i = 0; i < 9; i++) {
+            int[] row = grid[i];
+            for (int j = 0; j < 9; j++) {
+                int val = row[j];
+                out.put(val == 0 ? (byte) '.' : (byte) ('0' + val));
+            }
+        }
+    }
+
+    // Reads 81 characters starting at the buffer's position. Returns false, with
+    // the position undefined, if one of them is not a digit or a blank.
+    public static boolean decode(ByteBuffer in, int[][] grid) {
+        if (in.remaining() < LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < 9; i++) {
+            int[] row = grid[i];
+            for (int j = 0; j < 9; j++) {
+                int c = in.get();
+                if (c >= '1' && c <= '9') {
+                    row[j] = c - '0';
+                } else if (c == '.' || c == '0') {
+                    row[j] = 0;
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public static boolean decode(CharSequence line, int[][] grid) {
+        if (line.length() < LENGTH) {
+            return false;
+        }
+        for (int k = 0; k < LENGTH; k++) {
+            char c = line.charAt(k);
+            if (c >= '1' && c <= '9') {
+                grid[k / 9][k % 9] = c - '0';
+            } else if (c == '.' || c == '0') {
+                grid[k / 9][k % 9] = 0;
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static String toLine(int[][] grid) {
+        StringBuilder str = new StringBuilder(LENGTH);
+        for (int[] row : grid) {
+            for (int val : row) {
+                str.append(val == 0 ? '.' : (char) ('0' + val));
+            }
+        }
+        return str.toString();
+    }
+
+    static boolean isSeparator(int c) {
+        return c == ',' || c == ';' || c == ' ' || c == '\t';
+    }
+}
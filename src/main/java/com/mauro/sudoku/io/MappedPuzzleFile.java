@@ -0,0 +1,104 @@
+package com.mauro.sudoku.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Random access over a binary puzzle file of any size. The file is mapped in
+// windows of whole records, each a little under 1 GiB, mapped on first use.
+public final class MappedPuzzleFile implements Closeable {
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final boolean withSolutions;
+    private final int recordLength;
+    private final long recordsPerWindow;
+    private final long size;
+    private final MappedByteBuffer[] windows;
+
+    private MappedPuzzleFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(PuzzleFormat.HEADER_LENGTH);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        header.flip();
+        if (header.remaining() < PuzzleFormat.HEADER_LENGTH) {
+            throw new IOException("Not a binary puzzle file");
+        }
+        for (byte b : PuzzleFormat.MAGIC) {
+            if (header.get() != b) {
+                throw new IOException("Not a binary puzzle file");
+            }
+        }
+        int version = header.get();
+        if (version != PuzzleFormat.VERSION) {
+            throw new IOException("Unsupported puzzle file version " + version);
+        }
+        withSolutions = (header.get() & PuzzleFormat.FLAG_SOLUTIONS) != 0;
+        recordLength = withSolutions ? 2 * BinaryCodec.LENGTH : BinaryCodec.LENGTH;
+        recordsPerWindow = WINDOW_BYTES / recordLength;
+        size = (channel.size() - PuzzleFormat.HEADER_LENGTH) / recordLength;
+        windows = new MappedByteBuffer[(int) ((size + recordsPerWindow - 1) / recordsPerWindow)];
+    }
+
+    public static MappedPuzzleFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedPuzzleFile(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean hasSolutions() {
+        return withSolutions;
+    }
+
+    public boolean read(long index, int[][] puzzle) throws IOException {
+        return read(index, puzzle, null);
+    }
+
+    // Decodes record index into puzzle, and into solution when the file has
+    // solutions and solution is not null. Returns false for a malformed record.
+    public boolean read(long index, int[][] puzzle, int[][] solution) throws IOException {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " out of " + size);
+        }
+        MappedByteBuffer window = window((int) (index / recordsPerWindow));
+        int offset = (int) (index % recordsPerWindow) * recordLength;
+        if (!BinaryCodec.decode(window, offset, puzzle)) {
+            return false;
+        }
+        return !withSolutions || solution == null
+            || BinaryCodec.decode(window, offset + BinaryCodec.LENGTH, solution);
+    }
+
+    private MappedByteBuffer window(int w) throws IOException {
+        MappedByteBuffer window = windows[w];
+        if (window == null) {
+            long first = w * recordsPerWindow;
+            long records = Math.min(recordsPerWindow, size - first);
+            window = channel.map(FileChannel.MapMode.READ_ONLY,
+                                 PuzzleFormat.HEADER_LENGTH + first * recordLength, records * recordLength);
+            windows[w] = window;
+        }
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.mauro.sudoku.io;
+
+public enum PuzzleFormat {
+    LINE,
+    BINARY;
+
+    // Binary files start with this header: magic, version, flags and two reserved bytes.
+    static final byte[] MAGIC = {'S', 'D', 'K', 'B'};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 8;
+    static final int FLAG_SOLUTIONS = 1;
+}
@@ -0,0 +1,199 @@
+package com.mauro.sudoku.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams puzzles out of a line or binary file, telling them apart by the
+// binary header. Decodes straight from one reusable buffer into the caller's
+// grids. Not thread safe.
+public final class PuzzleReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final PuzzleFormat format;
+    private final boolean fileHasSolutions;
+    private boolean eof, recordHasSolution;
+    private long count;
+
+    private PuzzleReader(ReadableByteChannel channel) throws IOException {
+        this.channel = channel;
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.flip();
+        fill(PuzzleFormat.HEADER_LENGTH);
+        if (startsWithMagic()) {
+            buffer.position(buffer.position() + 4);
+            int version = buffer.get();
+            if (version != PuzzleFormat.VERSION) {
+                throw new IOException("Unsupported puzzle file version " + version);
+            }
+            fileHasSolutions = (buffer.get() & PuzzleFormat.FLAG_SOLUTIONS) != 0;
+            buffer.position(buffer.position() + 2);
+            format = PuzzleFormat.BINARY;
+        } else {
+            fileHasSolutions = false;
+            format = PuzzleFormat.LINE;
+        }
+    }
+
+    public static PuzzleReader open(Path path) throws IOException {
+        return open(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // Reads from any channel, e.g. standard input; closing the reader closes it.
+    public static PuzzleReader open(ReadableByteChannel channel) throws IOException {
+        try {
+            return new PuzzleReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public PuzzleFormat getFormat() {
+        return format;
+    }
+
+    // whether the record returned by the last call to next carried a solution
+    public boolean hasSolution() {
+        return recordHasSolution;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean next(int[][] puzzle) throws IOException {
+        return next(puzzle, null);
+    }
+
+    // Reads the next puzzle, and its solution when there is one and solution is not null.
+    public boolean next(int[][] puzzle, int[][] solution) throws IOException {
+        boolean read = format == PuzzleFormat.BINARY ? nextBinary(puzzle, solution) : nextLine(puzzle, solution);
+        if (read) {
+            count++;
+        }
+        return read;
+    }
+
+    private boolean nextBinary(int[][] puzzle, int[][] solution) throws IOException {
+        int length = fileHasSolutions ? 2 * BinaryCodec.LENGTH : BinaryCodec.LENGTH;
+        if (buffer.remaining() < length) {
+            fill(length);
+            if (buffer.remaining() == 0) {
+                return false;
+            }
+            if (buffer.remaining() < length) {
+                throw new IOException("Truncated record after " + count + " puzzles");
+            }
+        }
+        int start = buffer.position();
+        if (!BinaryCodec.decode(buffer, puzzle)) {
+            throw malformed();
+        }
+        recordHasSolution = fileHasSolutions && solution != null;
+        if (recordHasSolution && !BinaryCodec.decode(buffer, solution)) {
+            throw malformed();
+        }
+        buffer.position(start + length);
+        return true;
+    }
+
+    private boolean nextLine(int[][] puzzle, int[][] solution) throws IOException {
+        while (true) {
+            int end = lineEnd();
+            if (end < 0) {
+                if (eof) {
+                    if (!buffer.hasRemaining()) {
+                        return false;
+                    }
+                    end = buffer.limit();
+                } else {
+                    if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+                        throw new IOException("Line longer than " + BUFFER_SIZE + " bytes after " + count + " puzzles");
+                    }
+                    fill();
+                    continue;
+                }
+            }
+            int start = buffer.position();
+            int length = end - start;
+            if (length > 0 && buffer.get(end - 1) == '\r') {
+                length--;
+            }
+            if (length == 0 || buffer.get(start) == '#') {
+                buffer.position(Math.min(end + 1, buffer.limit()));
+                continue;
+            }
+            if (length < LineCodec.LENGTH || !LineCodec.decode(buffer, puzzle)) {
+                throw malformed();
+            }
+            recordHasSolution = false;
+            if (solution != null && length >= 2 * LineCodec.LENGTH + 1
+                    && LineCodec.isSeparator(buffer.get(start + LineCodec.LENGTH))) {
+                buffer.position(start + LineCodec.LENGTH + 1);
+                if (!LineCodec.decode(buffer, solution)) {
+                    throw malformed();
+                }
+                recordHasSolution = true;
+            }
+            buffer.position(Math.min(end + 1, buffer.limit()));
+            return true;
+        }
+    }
+
+    private int lineEnd() {
+        for (int k = buffer.position(); k < buffer.limit(); k++) {
+            if (buffer.get(k) == '\n') {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private boolean startsWithMagic() {
+        if (buffer.remaining() < PuzzleFormat.HEADER_LENGTH) {
+            return false;
+        }
+        for (int k = 0; k < PuzzleFormat.MAGIC.length; k++) {
+            if (buffer.get(buffer.position() + k) != PuzzleFormat.MAGIC[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns after the first read that gets anything, so a pipe or a terminal
+    // hands over each puzzle as it arrives instead of once 64 KB have piled up.
+    private void fill() throws IOException {
+        buffer.compact();
+        int read = 0;
+        while (read == 0 && buffer.hasRemaining()) {
+            read = channel.read(buffer);
+        }
+        if (read < 0) {
+            eof = true;
+        }
+        buffer.flip();
+    }
+
+    private void fill(int needed) throws IOException {
+        while (buffer.remaining() < needed && !eof) {
+            fill();
+        }
+    }
+
+    private IOException malformed() {
+        return new IOException("Malformed puzzle after " + count + " puzzles");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.mauro.sudoku.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams puzzles to a file through one reusable buffer. Not thread safe.
+public final class PuzzleWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final PuzzleFormat format;
+    private final boolean withSolutions;
+    private long count;
+
+    private PuzzleWriter(WritableByteChannel channel, PuzzleFormat format, boolean withSolutions) {
+        this.channel = channel;
+        this.format = format;
+        this.withSolutions = withSolutions;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    public static PuzzleWriter create(Path path, PuzzleFormat format, boolean withSolutions) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                                               StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return create(channel, format, withSolutions);
+    }
+
+    // Writes to any channel, e.g. standard output; closing the writer closes it.
+    public static PuzzleWriter create(WritableByteChannel channel, PuzzleFormat format, boolean withSolutions) {
+        PuzzleWriter writer = new PuzzleWriter(channel, format, withSolutions);
+        if (format == PuzzleFormat.BINARY) {
+            writer.buffer.put(PuzzleFormat.MAGIC)
+                         .put((byte) PuzzleFormat.VERSION)
+                         .put((byte) (withSolutions ? PuzzleFormat.FLAG_SOLUTIONS : 0))
+                         .put((byte) 0)
+                         .put((byte) 0);
+        }
+        return writer;
+    }
+
+    public PuzzleFormat getFormat() {
+        return format;
+    }
+
+    public boolean hasSolutions() {
+        return withSolutions;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public void write(int[][] puzzle) throws IOException {
+        if (withSolutions) {
+            throw new IllegalStateException("This file stores a solution with every puzzle");
+        }
+        write(puzzle, null);
+    }
+
+    public void write(int[][] puzzle, int[][] solution) throws IOException {
+        if (withSolutions && solution == null) {
+            throw new IllegalStateException("This file stores a solution with every puzzle");
+        }
+        if (buffer.remaining() < 2 * LineCodec.LENGTH + 2) {
+            drain();
+        }
+        if (format == PuzzleFormat.BINARY) {
+            BinaryCodec.encode(puzzle, buffer);
+            if (withSolutions) {
+                BinaryCodec.encode(solution, buffer);
+            }
+        } else {
+            LineCodec.encode(puzzle, buffer);
+            if (solution != null) {
+                buffer.put((byte) ',');
+                LineCodec.encode(solution, buffer);
+            }
+            buffer.put((byte) '\n');
+        }
+        count++;
+    }
+
+    public void flush() throws IOException {
+        drain();
+        if (channel instanceof FileChannel) {
+            ((FileChannel) channel).force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,137 @@
+package com.mauro.sudoku.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Named counters and latency timers for the whole process, cheap enough to
+// leave on in production and dumped as text on demand. Look a metric up once
+// and keep the handle; recording never touches the registry again.
+public final class Metrics {
+    private static final Metrics GLOBAL = new Metrics();
+
+    // sorted, so dumps list related metrics together
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, Timer> timers = new ConcurrentSkipListMap<>();
+
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, n -> new Timer());
+    }
+
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        timers.values().forEach(Timer::reset);
+    }
+
+    // One line per metric that has seen anything: counters as their total,
+    // timers as count and mean/percentiles in microseconds.
+    public void dump(Appendable out) {
+        try {
+            for (Map.Entry<String, Counter> e : counters.entrySet()) {
+                long value = e.getValue().get();
+                if (value != 0) {
+                    out.append(String.format(Locale.ROOT, "%-24s %d%n", e.getKey(), value));
+                }
+            }
+            for (Map.Entry<String, Timer> e : timers.entrySet()) {
+                LatencyHistogram h = e.getValue().snapshot();
+                if (h.getCount() != 0) {
+                    out.append(String.format(Locale.ROOT,
+                        "%-24s count %d  mean %.1f  p50 %.1f  p90 %.1f  p99 %.1f  max %.1f (us)%n",
+                        e.getKey(), h.getCount(), h.getMean() / 1e3, h.valueAt(50) / 1e3,
+                        h.valueAt(90) / 1e3, h.valueAt(99) / 1e3, h.getMax() / 1e3));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public String dump() {
+        StringBuilder str = new StringBuilder();
+        dump(str);
+        return str.toString();
+    }
+
+    public static final class Counter {
+        private final LongAdder value = new LongAdder();
+
+        private Counter() {
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long n) {
+            value.add(n);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        private void reset() {
+            value.reset();
+        }
+    }
+
+    // A histogram of nanosecond durations, split into stripes picked by thread so
+    // parallel generation and server threads rarely share a lock. Each stripe's
+    // lock is held for a few array updates only; snapshot merges the stripes.
+    public static final class Timer {
+        private static final int STRIPES =
+            Integer.highestOneBit(Math.min(64, 2 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+
+        private final LatencyHistogram[] stripes = new LatencyHistogram[STRIPES];
+
+        private Timer() {
+            for (int k = 0; k < STRIPES; k++) {
+                stripes[k] = new LatencyHistogram();
+            }
+        }
+
+        public void record(long nanos) {
+            // thread ids are sequential; the multiply spreads neighbours over the stripes
+            long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+            LatencyHistogram stripe = stripes[(int) (id >>> 32) & (STRIPES - 1)];
+            synchronized (stripe) {
+                stripe.record(nanos);
+            }
+        }
+
+        // records the time since start, a System.nanoTime() reading
+        public void recordSince(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        public LatencyHistogram snapshot() {
+            LatencyHistogram copy = new LatencyHistogram();
+            for (LatencyHistogram stripe : stripes) {
+                synchronized (stripe) {
+                    copy.add(stripe);
+                }
+            }
+            return copy;
+        }
+
+        private void reset() {
+            for (LatencyHistogram stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.reset();
+                }
+            }
+        }
+    }
+}
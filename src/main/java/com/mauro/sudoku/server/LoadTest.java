@@ -0,0 +1,80 @@
+package com.mauro.sudoku.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mauro.sudoku.metrics.LatencyHistogram;
+
+// Fires requests at a URL with up to a given number in flight at once and
+// records each one's latency from send to full response. The client is
+// asynchronous, so thousands in flight cost connections, not threads.
+public final class LoadTest {
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+    private long count, nanos;
+
+    private LoadTest() {
+    }
+
+    // Sends requests GETs to uri, at most concurrency at a time, and waits for every answer.
+    public static LoadTest run(URI uri, int requests, int concurrency) throws InterruptedException {
+        if (requests < 0 || concurrency < 1) {
+            throw new IllegalArgumentException("need a non-negative request count and a concurrency of at least 1");
+        }
+        LoadTest test = new LoadTest();
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        for (int k = 0; k < requests; k++) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, failure) -> {
+                long took = System.nanoTime() - sent;
+                if (failure != null || response.statusCode() != 200) {
+                    test.errors.incrementAndGet();
+                } else {
+                    synchronized (test.latencies) {
+                        test.latencies.record(took);
+                    }
+                }
+                inFlight.release();
+            });
+        }
+        // every permit back means every answer is in
+        inFlight.acquire(concurrency);
+        test.nanos = System.nanoTime() - start;
+        test.count = requests;
+        return test;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    // failed requests and answers other than 200
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    // of the successful requests only
+    public LatencyHistogram getLatencies() {
+        LatencyHistogram copy = new LatencyHistogram();
+        synchronized (latencies) {
+            copy.add(latencies);
+        }
+        return copy;
+    }
+}
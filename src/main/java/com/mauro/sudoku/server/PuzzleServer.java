@@ -0,0 +1,289 @@
+package com.mauro.sudoku.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.mauro.sudoku.game.Difficulty;
+import com.mauro.sudoku.game.Hint;
+import com.mauro.sudoku.game.PuzzleId;
+import com.mauro.sudoku.game.PuzzlePool;
+import com.mauro.sudoku.game.SudokuGenerator;
+import com.mauro.sudoku.game.SudokuLogic;
+import com.mauro.sudoku.game.SudokuSolver;
+import com.mauro.sudoku.io.LineCodec;
+import com.mauro.sudoku.metrics.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Local HTTP service for 9x9 puzzles, JSON out:
+//   GET  /puzzle?difficulty=easy|medium|hard   a pooled puzzle, or ?id= to rebuild one by its ID
+//   /validate, /solve, /hint                   take ?puzzle= or the puzzle line as the request body
+//   GET  /metrics                              the process metrics as text
+// Every request runs on its own virtual thread where the JDK has them (21+),
+// and on a bounded pool of platform threads otherwise.
+public final class PuzzleServer implements AutoCloseable {
+    private static final int BACKLOG = 16 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final PuzzlePool pool;
+
+    private PuzzleServer(HttpServer server, PuzzlePool pool) {
+        this.server = server;
+        this.pool = pool;
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        endpoint("/puzzle", this::puzzle);
+        endpoint("/validate", PuzzleServer::validate);
+        endpoint("/solve", PuzzleServer::solve);
+        endpoint("/hint", PuzzleServer::hint);
+        server.createContext("/metrics", exchange -> {
+            byte[] bytes = Metrics.global().dump().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+    }
+
+    // Port 0 picks a free port, see getPort.
+    public static PuzzleServer start(InetSocketAddress address, int poolCapacity) throws IOException {
+        // Headers and body go out in separate writes; with Nagle on, the body waits
+        // for the client's delayed ACK and every answer takes 40 ms. Read once, by
+        // the first server created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        PuzzleServer service = new PuzzleServer(HttpServer.create(address, BACKLOG), new PuzzlePool(poolCapacity));
+        service.server.start();
+        return service;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public boolean usesVirtualThreads() {
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pool.close();
+    }
+
+    // Looked up by name so the service still builds and runs on 17.
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the work is all CPU, so a few threads per core keep up
+            int threads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "puzzle-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Endpoint {
+        // returns the JSON body; anything but 200 is thrown as a Status
+        String answer(HttpExchange exchange) throws IOException;
+    }
+
+    private static final class Status extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int code;
+
+        Status(int code, String message) {
+            super(message, null, false, false);
+            this.code = code;
+        }
+    }
+
+    private void endpoint(String path, Endpoint endpoint) {
+        Metrics.Timer timer = Metrics.global().timer("server" + path);
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            try {
+                handle(exchange, endpoint);
+            } finally {
+                exchange.close();
+                timer.recordSince(start);
+            }
+        });
+    }
+
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int code = 200;
+        String body;
+        try {
+            body = endpoint.answer(exchange);
+        } catch (Status e) {
+            code = e.code;
+            body = "{\"error\":\"" + e.getMessage() + "\"}";
+        } catch (IOException e) {
+            // the request body broke off; the answer may still get through
+            code = 400;
+            body = "{\"error\":\"unreadable request body\"}";
+        } catch (RuntimeException e) {
+            code = 500;
+            body = "{\"error\":\"internal error\"}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String puzzle(HttpExchange exchange) {
+        requireMethod(exchange, "GET");
+        String query = exchange.getRequestURI().getRawQuery();
+        int[][] grid = new int[9][9];
+        PuzzleId id;
+        String value = parameter(query, "id");
+        if (value != null) {
+            try {
+                id = PuzzleId.parse(value);
+            } catch (IllegalArgumentException e) {
+                throw new Status(400, "malformed puzzle id");
+            }
+            if (id.getBoxSize() != 3) {
+                throw new Status(400, "only 9x9 puzzles are served");
+            }
+            grid = SudokuGenerator.generateGrid(id);
+        } else {
+            id = pool.takeInto(difficulty(parameter(query, "difficulty")), grid);
+        }
+        return new StringBuilder(160)
+            .append("{\"id\":\"").append(id)
+            .append("\",\"difficulty\":\"").append(id.getDifficulty().name().toLowerCase(Locale.ROOT))
+            .append("\",\"puzzle\":\"").append(LineCodec.toLine(grid))
+            .append("\"}").toString();
+    }
+
+    private static String validate(HttpExchange exchange) throws IOException {
+        int[][] grid = readPuzzle(exchange);
+        long[] conflicts = new long[2];
+        boolean conflicting = SudokuLogic.findConflicts(grid, conflicts);
+        boolean complete = true;
+        for (int[] row : grid) {
+            for (int val : row) {
+                complete &= val != 0;
+            }
+        }
+        StringBuilder json = new StringBuilder(128)
+            .append("{\"valid\":").append(!conflicting)
+            .append(",\"complete\":").append(complete)
+            .append(",\"conflicts\":[");
+        String separator = "";
+        for (int cell = 0; cell < 81; cell++) {
+            if ((conflicts[cell >>> 6] & 1L << (cell & 63)) != 0) {
+                json.append(separator).append(cell);
+                separator = ",";
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private static String solve(HttpExchange exchange) throws IOException {
+        int[][] grid = readPuzzle(exchange);
+        SudokuSolver solver = new SudokuSolver();
+        if (solver.countSolutions(grid, 2) != 1 || !solver.solve(grid)) {
+            throw new Status(422, "puzzle does not have exactly one solution");
+        }
+        return "{\"solution\":\"" + LineCodec.toLine(grid) + "\"}";
+    }
+
+    private static String hint(HttpExchange exchange) throws IOException {
+        int[][] grid = readPuzzle(exchange);
+        if (SudokuLogic.findConflicts(grid, new long[2])) {
+            throw new Status(422, "puzzle has conflicting digits");
+        }
+        Hint hint = SudokuGenerator.toSudoku(grid).hint();
+        if (hint == null) {
+            throw new Status(422, "no hint for this puzzle");
+        }
+        StringBuilder json = new StringBuilder(160)
+            .append("{\"technique\":\"").append(hint.getTechnique().name().toLowerCase(Locale.ROOT))
+            .append("\",\"placement\":").append(hint.isPlacement())
+            .append(",\"row\":").append(hint.getRow())
+            .append(",\"column\":").append(hint.getColumn())
+            .append(",\"digit\":").append(hint.getDigit())
+            .append(",\"cells\":[");
+        int[] cells = hint.getCells();
+        for (int k = 0; k < cells.length; k++) {
+            json.append(k == 0 ? "" : ",").append(cells[k]);
+        }
+        return json.append("],\"text\":\"").append(hint).append("\"}").toString();
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new Status(405, "use " + method);
+        }
+    }
+
+    private static Difficulty difficulty(String value) {
+        if (value == null) {
+            return Difficulty.MEDIUM;
+        }
+        try {
+            return Difficulty.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new Status(400, "unknown difficulty");
+        }
+    }
+
+    // the puzzle line from ?puzzle= or, failing that, the request body
+    private static int[][] readPuzzle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("POST")) {
+            throw new Status(405, "use GET or POST");
+        }
+        String line = parameter(exchange.getRequestURI().getRawQuery(), "puzzle");
+        if (line == null) {
+            try (InputStream in = exchange.getRequestBody()) {
+                line = new String(in.readNBytes(4 * LineCodec.LENGTH), StandardCharsets.US_ASCII).strip();
+            }
+        }
+        int[][] grid = new int[9][9];
+        if (line.length() != LineCodec.LENGTH || !LineCodec.decode(line, grid)) {
+            throw new Status(400, "expected 81 digits, '.' or '0' for blanks");
+        }
+        return grid;
+    }
+
+    private static String parameter(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq == name.length() && pair.startsWith(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.mauro.sudoku.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class CliTest {
+    @TempDir
+    Path dir;
+
+    private String stdout, stderr;
+
+    private int run(String input, String... args) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(), err = new ByteArrayOutputStream();
+        int code = Cli.run(args, new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), out,
+                           new PrintStream(err, true));
+        stdout = out.toString(StandardCharsets.US_ASCII);
+        stderr = err.toString(StandardCharsets.US_ASCII);
+        return code;
+    }
+
+    @Test
+    public void generatedPacksValidateAndSolve() throws Exception {
+        Path pack = dir.resolve("pack.txt");
+        assertEquals(0, run("", "generate", "--count", "70", "--threads", "2", "--difficulty", "easy",
+                            "--seed", "15", "--out", pack.toString()));
+        assertTrue(stderr.contains("70 puzzles"), stderr);
+        assertTrue(stderr.contains("p99"), stderr);
+        List<String> puzzles = Files.readAllLines(pack);
+        assertEquals(70, puzzles.size());
+
+        assertEquals(0, run("", "validate", "--in", pack.toString()));
+        String[] lines = stdout.split("\n");
+        assertEquals(70, lines.length);
+        for (String line : lines) {
+            assertTrue(line.endsWith(" unique"), line);
+        }
+
+        assertEquals(0, run(puzzles.get(0) + "\n", "solve"));
+        String solution = stdout.trim().split(",")[1];
+        assertEquals(81, solution.length());
+        assertTrue(solution.matches("[1-9]+"));
+    }
+
+    @Test
+    public void sameSeedGivesTheSamePack() {
+        run("", "generate", "--count", "5", "--seed", "3", "--threads", "1");
+        String first = stdout;
+        run("", "generate", "--count", "5", "--seed", "3", "--threads", "3");
+        assertEquals(first, stdout);
+    }
+
+    @Test
+    public void dedupDropsDisguisedCopies() {
+        run("", "generate", "--count", "2", "--seed", "3", "--unique");
+        String[] lines = stdout.split("\n");
+        StringBuilder transposed = new StringBuilder();
+        for (int k = 0; k < 81; k++) {
+            transposed.append(lines[0].charAt(k % 9 * 9 + k / 9));
+        }
+        String relabeled = lines[1].replace('1', 'x').replace('2', '1').replace('x', '2');
+        String input = String.join("\n", lines[0], lines[1], transposed, relabeled) + "\n";
+        assertEquals(0, run(input, "dedup"));
+        assertEquals(lines[0] + "\n" + lines[1] + "\n", stdout);
+        assertTrue(stderr.startsWith("dedup: 4 puzzles"));
+    }
+
+    @Test
+    public void checkGivesAVerdictPerPuzzleInOrder() {
+        String solved = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+        String blank = "." + solved.substring(1);
+        String clash = "4" + solved.substring(1);
+        StringBuilder input = new StringBuilder();
+        for (int k = 0; k < 5000; k++) {
+            input.append(k % 3 == 0 ? solved : k % 3 == 1 ? blank : clash).append('\n');
+        }
+        assertEquals(0, run(input.toString(), "check"));
+        String[] lines = stdout.split("\n");
+        assertEquals(5000, lines.length);
+        assertTrue(lines[0].endsWith(" valid"), lines[0]);
+        assertTrue(lines[4000].endsWith(" incomplete"), lines[4000]);
+        assertTrue(lines[4997].endsWith(" invalid"), lines[4997]);
+        assertTrue(stderr.startsWith("check: 5000 puzzles"), stderr);
+    }
+
+    @Test
+    public void reportsBadPuzzlesAndBadUsage() {
+        String broken = "55" + ".".repeat(79) + "\n";
+        assertEquals(0, run(broken, "validate"));
+        assertTrue(stdout.endsWith(" invalid\n"), stdout);
+        assertEquals(0, run(broken, "solve"));
+        assertTrue(stdout.startsWith("# "), stdout);
+
+        assertEquals(2, run("", "shuffle"));
+        assertEquals(2, run("", "generate", "--count"));
+        assertEquals(2, run("", "generate", "--difficulty", "brutal"));
+        assertEquals(1, run("", "solve", "--in", dir.resolve("missing.txt").toString()));
+    }
+}
@@ -0,0 +1,102 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import com.mauro.sudoku.game.BatchValidator.Verdict;
+
+public class BatchValidatorTest {
+    private static final String SOLVED =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    // what checking one board at a time says
+    private static Verdict expected(int[][] grid) {
+        if (SudokuLogic.findConflicts(grid, new long[2])) {
+            return Verdict.INVALID;
+        }
+        for (int[] row : grid) {
+            for (int val : row) {
+                if (val == 0) {
+                    return Verdict.INCOMPLETE;
+                }
+            }
+        }
+        return Verdict.VALID;
+    }
+
+    private static void agreesBoardByBoard(BatchValidator validator) {
+        SplittableRandom r = new SplittableRandom(3);
+        int[][][] grids = new int[validator.getCapacity()][][];
+        for (int n = 0; n < grids.length; n++) {
+            int[][] grid = SudokuSolverTest.parse(SOLVED);
+            SudokuGenerator.shuffledSolution(grid, r);
+            // a third stay solved, the rest get blanks, wrong digits or both
+            int blanks = n % 3 == 1 ? 1 + r.nextInt(50) : 0, wrong = n % 3 == 2 ? 1 + r.nextInt(3) : 0;
+            for (int k = 0; k < blanks; k++) {
+                grid[r.nextInt(9)][r.nextInt(9)] = 0;
+            }
+            for (int k = 0; k < wrong; k++) {
+                grid[r.nextInt(9)][r.nextInt(9)] = 1 + r.nextInt(9);
+            }
+            grids[n] = grid;
+            assertEquals(n, validator.add(grid));
+        }
+        validator.validate();
+        for (int n = 0; n < grids.length; n++) {
+            assertEquals(expected(grids[n]), validator.verdict(n), "board " + n);
+        }
+    }
+
+    @Test
+    public void scalarKernelAgreesBoardByBoard() {
+        agreesBoardByBoard(new BatchValidator(1000, new ScalarBatchKernel()));
+    }
+
+    // vectorized when the tests run with -Pvector, which adds the incubator module
+    @Test
+    public void defaultKernelAgreesBoardByBoard() {
+        BatchValidator validator = new BatchValidator(1001);
+        assertEquals(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(), validator.isVectorized());
+        agreesBoardByBoard(validator);
+    }
+
+    @Test
+    public void vectorKernelCanBeTurnedOff() {
+        System.setProperty("sudoku.vector", "false");
+        try {
+            BatchValidator validator = new BatchValidator(100);
+            assertFalse(validator.isVectorized());
+            agreesBoardByBoard(validator);
+        } finally {
+            System.clearProperty("sudoku.vector");
+        }
+    }
+
+    @Test
+    public void clearedBatchIsReused() {
+        BatchValidator validator = new BatchValidator(2);
+        validator.add(SudokuSolverTest.parse(SOLVED));
+        validator.add(new int[9][9]);
+        assertTrue(validator.isFull());
+        assertThrows(IllegalStateException.class, () -> validator.add(new int[9][9]));
+        validator.validate();
+        assertEquals(Verdict.INCOMPLETE, validator.verdict(1));
+
+        validator.clear();
+        int[][] grid = SudokuSolverTest.parse(SOLVED);
+        grid[0][0] = 4;
+        validator.add(grid);
+        assertThrows(IllegalStateException.class, () -> validator.verdict(0));
+        validator.validate();
+        assertEquals(Verdict.INVALID, validator.verdict(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> validator.verdict(1));
+        grid[0][0] = 10;
+        assertThrows(IllegalArgumentException.class, () -> validator.add(grid));
+    }
+}
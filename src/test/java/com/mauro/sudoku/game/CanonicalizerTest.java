@@ -0,0 +1,98 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class CanonicalizerTest {
+    // a random transformation of the kind the canonical form must see through
+    private static int[][] disguise(int[][] grid, SplittableRandom r) {
+        int[] digits = new int[10], rows = new int[9], cols = new int[9];
+        int[] d = shuffled(9, r), bands = shuffled(3, r), stacks = shuffled(3, r);
+        for (int k = 0; k < 9; k++) {
+            digits[k + 1] = d[k] + 1;
+        }
+        for (int b = 0; b < 3; b++) {
+            int[] inRows = shuffled(3, r), inCols = shuffled(3, r);
+            for (int k = 0; k < 3; k++) {
+                rows[b * 3 + k] = bands[b] * 3 + inRows[k];
+                cols[b * 3 + k] = stacks[b] * 3 + inCols[k];
+            }
+        }
+        boolean transpose = r.nextBoolean();
+        int[][] out = new int[9][9];
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                out[i][j] = digits[transpose ? grid[cols[j]][rows[i]] : grid[rows[i]][cols[j]]];
+            }
+        }
+        return out;
+    }
+
+    private static int[] shuffled(int n, SplittableRandom r) {
+        int[] values = new int[n];
+        for (int k = 0; k < n; k++) {
+            int swap = r.nextInt(k + 1);
+            values[k] = values[swap];
+            values[swap] = k;
+        }
+        return values;
+    }
+
+    private static int[][] puzzle(long seed) {
+        int[][] grid = new int[9][9];
+        SudokuGenerator.generateSudoku(grid, Difficulty.HARD, new SplittableRandom(seed), new SolutionCounter());
+        return grid;
+    }
+
+    @Test
+    public void disguisedCopiesShareTheirCanonicalForm() {
+        Canonicalizer canon = new Canonicalizer();
+        SplittableRandom r = new SplittableRandom(5);
+        for (long seed = 0; seed < 20; seed++) {
+            int[][] puzzle = puzzle(seed), expected = new int[9][9], actual = new int[9][9];
+            assertTrue(canon.canonicalize(puzzle, expected));
+            long fingerprint = canon.fingerprint(puzzle);
+            for (int k = 0; k < 5; k++) {
+                int[][] copy = disguise(puzzle, r);
+                assertTrue(canon.canonicalize(copy, actual));
+                assertArrayEquals(expected, actual);
+                assertEquals(fingerprint, canon.fingerprint(copy));
+            }
+            // the canonical form is its own canonical form
+            assertTrue(canon.canonicalize(expected, actual));
+            assertArrayEquals(expected, actual);
+            assertNotEquals(fingerprint, canon.fingerprint(puzzle(seed + 100)));
+        }
+    }
+
+    @Test
+    public void solvedGridsStartWithTheSmallestRows() {
+        int[][] grid = new int[9][9], canonical = new int[9][9];
+        SudokuGenerator.shuffledSolution(grid, new SplittableRandom(3));
+        Canonicalizer canon = new Canonicalizer();
+        assertTrue(canon.canonicalize(grid, canonical));
+        assertArrayEquals(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9}, canonical[0]);
+        assertEquals(4, canonical[1][0]);
+        long[] wide = new long[2];
+        canon.fingerprint(grid, wide);
+        assertEquals(canon.fingerprint(grid), wide[0]);
+        assertEquals(wide[0], Canonicalizer.fingerprintOf(canonical));
+        assertNotEquals(wide[0], wide[1]);
+    }
+
+    @Test
+    public void onlyUniquelySolvableGridsAreCanonical() {
+        Canonicalizer canon = new Canonicalizer();
+        assertFalse(canon.canonicalize(new int[9][9], new int[9][9]));
+        assertThrows(IllegalArgumentException.class, () -> canon.fingerprint(new int[9][9]));
+        assertThrows(IllegalArgumentException.class, () -> canon.fingerprint(new int[16][16]));
+    }
+}
@@ -0,0 +1,41 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class FingerprintSetTest {
+    @Test
+    public void agreesWithAHashSetWhileGrowing() {
+        FingerprintSet set = new FingerprintSet(4);
+        Set<Long> expected = new HashSet<>();
+        SplittableRandom r = new SplittableRandom(9);
+        for (int k = 0; k < 200_000; k++) {
+            // a narrow range so that repeats happen
+            long fingerprint = r.nextLong(150_000) * 0x9E3779B97F4A7C15L;
+            assertEquals(expected.add(fingerprint), set.add(fingerprint));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long fingerprint : expected) {
+            assertTrue(set.contains(fingerprint));
+        }
+        assertFalse(set.contains(1));
+        assertTrue(set.capacityBytes() >= 8L * set.size());
+    }
+
+    @Test
+    public void zeroIsAFingerprintToo() {
+        FingerprintSet set = new FingerprintSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+    }
+}
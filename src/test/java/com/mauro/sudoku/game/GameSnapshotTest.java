@@ -0,0 +1,167 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GameSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private static SudokuLogic game() {
+        int[][] grid = new int[9][9];
+        SudokuGenerator.generateSudoku(grid, Difficulty.MEDIUM, new SplittableRandom(14),
+                                       new SolutionCounter());
+        SudokuLogic sudoku = SudokuGenerator.toSudoku(grid);
+        for (int k = 0; k < 81; k++) {
+            if (sudoku.getCandidates(k / 9, k % 9) != 0) {
+                sudoku.put(Long.numberOfTrailingZeros(sudoku.getCandidates(k / 9, k % 9)) + 1, k / 9, k % 9);
+                break;
+            }
+        }
+        sudoku.toggleNoteTaking();
+        for (int k = 80; k >= 0; k--) {
+            if (!sudoku.hasDefinitiveAnswerIn(k / 9 * 3, k % 9 * 3)) {
+                sudoku.put(4, k / 9, k % 9);
+                sudoku.put(7, k / 9, k % 9);
+                break;
+            }
+        }
+        return sudoku;
+    }
+
+    private static void assertSameBoard(SudokuLogic expected, SudokuLogic actual) {
+        int side = expected.getSize() * expected.getBoxSize();
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                assertEquals(expected.getValueIn(i, j), actual.getValueIn(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void roundTripKeepsBoardNotesModeAndHistory() throws IOException {
+        SudokuLogic sudoku = game();
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.sizeOf(sudoku));
+        GameSnapshot.write(sudoku, 123_456L, buffer);
+        assertFalse(buffer.hasRemaining());
+
+        GameSnapshot snapshot = GameSnapshot.read(buffer.flip());
+        SudokuLogic copy = snapshot.getSudoku();
+        assertEquals(123_456L, snapshot.getElapsedMillis());
+        assertTrue(copy.isTakingNotes());
+        assertEquals(null, copy.getPuzzleId());
+        assertEquals(sudoku.givenBits(0), copy.givenBits(0));
+        assertEquals(sudoku.givenBits(1), copy.givenBits(1));
+        assertSameBoard(sudoku, copy);
+
+        assertTrue(copy.undo() && copy.undo() && copy.undo());
+        assertTrue(sudoku.undo() && sudoku.undo() && sudoku.undo());
+        assertSameBoard(sudoku, copy);
+        assertFalse(copy.canUndo());
+    }
+
+    @Test
+    public void rejectsForeignAndTruncatedData() {
+        byte[] bytes = GameSnapshot.toBytes(game(), 0);
+        assertThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(bytes, 0, bytes.length - 3)));
+        bytes[4] = 99;
+        assertThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(bytes)));
+        assertThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(new byte[16])));
+    }
+
+    // the last entry of game()'s history is a notes change
+    @Test
+    public void rejectsMoveLogEntriesOffTheBoard() throws IOException {
+        byte[] bytes = GameSnapshot.toBytes(game(), 0);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int at = bytes.length - 8;
+        long entry = buffer.getLong(at);
+        assertEquals(MoveLog.KIND_NOTES, MoveLog.kindOf(entry));
+        long[] corrupt = {
+            entry & ~0x3FFL | 81,
+            entry | 1L << (36 + 9),
+            entry | 1L << 63,
+            entry & ~(1L << 10) | 10L << 36
+        };
+        for (long bad : corrupt) {
+            buffer.putLong(at, bad);
+            assertThrows(IOException.class, () -> GameSnapshot.read(ByteBuffer.wrap(bytes)));
+        }
+        buffer.putLong(at, entry);
+        assertTrue(GameSnapshot.read(ByteBuffer.wrap(bytes)).getSudoku().canUndo());
+    }
+
+    @Test
+    public void autosaverReplacesTheFileAtomically() throws IOException {
+        Path file = dir.resolve("autosave.sdks");
+        SudokuLogic sudoku = game();
+        try (Autosaver autosaver = new Autosaver(file)) {
+            autosaver.save(sudoku, 1);
+            autosaver.save(sudoku, 2);
+        }
+        assertEquals(2, GameSnapshot.load(file).getElapsedMillis());
+        assertFalse(Files.exists(dir.resolve("autosave.sdks.tmp")));
+    }
+
+    @Test
+    public void snapshotsAreCheap() {
+        SudokuLogic sudoku = game();
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.sizeOf(sudoku));
+        for (int k = 0; k < 20_000; k++) {
+            buffer.clear();
+            GameSnapshot.write(sudoku, k, buffer);
+        }
+        long start = System.nanoTime();
+        for (int k = 0; k < 10_000; k++) {
+            buffer.clear();
+            GameSnapshot.write(sudoku, k, buffer);
+        }
+        long perWrite = (System.nanoTime() - start) / 10_000;
+        assertTrue(perWrite < 100_000, perWrite + " ns per snapshot");
+    }
+
+    @Test
+    public void largeBoardsRoundTrip() throws IOException {
+        SudokuLogic sudoku = SudokuGenerator.generateSudoku(4, Difficulty.EASY);
+        sudoku.toggleNoteTaking();
+        for (int k = 0; k < 256; k++) {
+            if (!sudoku.isGiven(k / 16, k % 16)) {
+                sudoku.put(16, k / 16, k % 16);
+                break;
+            }
+        }
+        GameSnapshot snapshot = GameSnapshot.read(ByteBuffer.wrap(GameSnapshot.toBytes(sudoku, 9)));
+        assertEquals(4, snapshot.getSudoku().getBoxSize());
+        assertEquals(sudoku.getPuzzleId(), snapshot.getSudoku().getPuzzleId());
+        assertSameBoard(sudoku, snapshot.getSudoku());
+        assertTrue(snapshot.getSudoku().undo());
+    }
+
+    @Test
+    public void readsFirstVersionSnapshots() throws IOException {
+        ByteBuffer v1 = ByteBuffer.allocate(8 + 8 + 16 + 41 + 162 + 12);
+        v1.put(new byte[] {'S', 'D', 'K', 'S', 1, 0, 0, 0}).putLong(5000).putLong(0).putLong(0);
+        // 7 in cell 0, put there by the only logged move: cell 0, answer, 0 -> 7
+        v1.put((byte) 0x70).put(new byte[40]).put(new byte[162]);
+        v1.putInt(1).putInt(1).putInt(7 << 17);
+        GameSnapshot snapshot = GameSnapshot.read(v1.flip());
+        SudokuLogic sudoku = snapshot.getSudoku();
+        assertEquals(5000, snapshot.getElapsedMillis());
+        assertEquals(7, sudoku.getValueIn(0, 0));
+        assertTrue(sudoku.undo());
+        assertEquals(0, sudoku.getValueIn(0, 0));
+        assertTrue(sudoku.redo());
+        assertEquals(7, sudoku.getValueIn(2, 2));
+    }
+}
@@ -0,0 +1,108 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+public class LogicalSolverTest {
+    private static final String EASY =
+        "530070000600195000098000060800060003400803001700020006060000280000419005000080079";
+    private static final String ESCARGOT =
+        "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..";
+
+    @Test
+    public void easyPuzzleNeedsOnlySingles() {
+        LogicalSolver solver = new LogicalSolver();
+        Grade grade = solver.grade(SudokuSolverTest.parse(EASY));
+        assertTrue(grade.isSolved());
+        assertTrue(grade.getHardest().compareTo(Technique.NAKED_SINGLE) <= 0);
+        assertEquals(Difficulty.EASY, Difficulty.forRating(grade.getRating()));
+        assertEquals(51, grade.getCount(Technique.HIDDEN_SINGLE) + grade.getCount(Technique.NAKED_SINGLE));
+    }
+
+    @Test
+    public void fullGridHasNoHardestTechnique() {
+        int[][] grid = SudokuSolverTest.parse(EASY);
+        new SudokuSolver().solve(grid);
+        Grade grade = new LogicalSolver().grade(grid);
+        assertTrue(grade.isSolved());
+        assertNull(grade.getHardest());
+        assertEquals(0, grade.getRating());
+    }
+
+    @Test
+    public void escargotNeedsGuessing() {
+        Grade grade = new LogicalSolver().grade(SudokuSolverTest.parse(ESCARGOT));
+        assertFalse(grade.isSolved());
+        assertEquals(Technique.GUESSING, grade.getHardest());
+        assertEquals(Difficulty.HARD, Difficulty.forRating(grade.getRating()));
+    }
+
+    // An empty board where every cell may still take any digit, but for the given masks.
+    private static Hint hintFor(int[] candidates) {
+        LogicalSolver solver = new LogicalSolver();
+        solver.load(new int[81], candidates);
+        return solver.hint();
+    }
+
+    private static int[] allCandidates() {
+        int[] candidates = new int[81];
+        Arrays.fill(candidates, 0x1FF);
+        return candidates;
+    }
+
+    @Test
+    public void findsTheOnlyNakedPairOfAUnit() {
+        int[] candidates = allCandidates();
+        candidates[0] = candidates[1] = 0b11;
+        Hint hint = hintFor(candidates);
+        assertEquals(Technique.NAKED_PAIR, hint.getTechnique());
+        assertEquals(0b11, hint.getRemoved(2));
+    }
+
+    @Test
+    public void findsTheOnlyHiddenPairOfAUnit() {
+        // in box 0, 1 and 2 fit only in (0, 0) and (1, 1)
+        int[] candidates = allCandidates();
+        for (int cell : new int[] {1, 2, 9, 11, 18, 19, 20}) {
+            candidates[cell] &= ~0b11;
+        }
+        Hint hint = hintFor(candidates);
+        assertEquals(Technique.HIDDEN_PAIR, hint.getTechnique());
+        assertEquals(0x1FF & ~0b11, hint.getRemoved(0));
+        assertEquals(0x1FF & ~0b11, hint.getRemoved(10));
+    }
+
+    // every deduction must agree with the unique solution
+    @Test
+    public void deductionsAreSound() {
+        LogicalSolver logical = new LogicalSolver();
+        SudokuSolver exact = new SudokuSolver();
+        SolutionCounter counter = new SolutionCounter();
+        SplittableRandom r = new SplittableRandom(3);
+        int[][] puzzle = new int[9][9], partial = new int[9][9], solution = new int[9][9];
+        for (int run = 0; run < 200; run++) {
+            for (int[] row : puzzle) {
+                Arrays.fill(row, 0);
+            }
+            SudokuGenerator.generateSudoku(puzzle, Difficulty.HARD, r, counter);
+            for (int i = 0; i < 9; i++) {
+                solution[i] = puzzle[i].clone();
+            }
+            exact.solve(solution);
+            Grade grade = logical.grade(puzzle);
+            logical.copyValues(partial);
+            for (int i = 0; i < 9; i++) {
+                for (int j = 0; j < 9; j++) {
+                    assertTrue(partial[i][j] == 0 || partial[i][j] == solution[i][j], grade.toString());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+public class PuzzleIdTest {
+    @Test
+    public void textFormRoundTrips() {
+        PuzzleId id = PuzzleId.of(-2L, 4, Difficulty.HARD);
+        assertEquals("16H-FFFFFFFFFFFFFFFE", id.toString());
+        assertEquals(id, PuzzleId.parse(" 16h-fffffffffffffffe "));
+        assertEquals(PuzzleId.of(10, Difficulty.MEDIUM), PuzzleId.parse("9M-000000000000000A"));
+    }
+
+    @Test
+    public void rejectsMalformedIds() {
+        assertThrows(IllegalArgumentException.class, () -> PuzzleId.parse("9M-12"));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleId.parse("9X-000000000000000A"));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleId.parse("10E-000000000000000A"));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleId.parse("36E-000000000000000A"));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleId.parse("9E-00000000000000G0"));
+    }
+
+    @Test
+    public void dailyPuzzleDependsOnlyOnTheDate() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        assertEquals(PuzzleId.daily(day, Difficulty.EASY), PuzzleId.daily(LocalDate.parse("2024-03-01"), Difficulty.EASY));
+        assertNotEquals(PuzzleId.daily(day, Difficulty.EASY).getSeed(),
+                        PuzzleId.daily(day.plusDays(1), Difficulty.EASY).getSeed());
+    }
+}
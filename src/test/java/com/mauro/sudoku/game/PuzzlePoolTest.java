@@ -0,0 +1,84 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PuzzlePoolTest {
+    @TempDir
+    Path dir;
+
+    private static void awaitFull(PuzzlePool pool) throws InterruptedException {
+        for (int k = 0; k < 500; k++) {
+            boolean full = true;
+            for (Difficulty d : Difficulty.values()) {
+                full &= pool.available(d) == pool.getCapacity();
+            }
+            if (full) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void refillsInBackgroundAndPersists() throws Exception {
+        PuzzleId id;
+        try (PuzzlePool pool = new PuzzlePool(4, dir)) {
+            pool.load();
+            awaitFull(pool);
+            assertEquals(4, pool.available(Difficulty.HARD));
+            int[][] grid = pool.takeGrid(Difficulty.HARD);
+            assertTrue(new SudokuSolver().hasUniqueSolution(grid));
+            awaitFull(pool);
+            pool.save();
+            id = pool.take(Difficulty.EASY).getPuzzleId();
+        }
+        // only the seeds are kept
+        assertEquals(4 + 4 * 8, Files.size(dir.resolve("pool-easy.seeds")));
+
+        try (PuzzlePool pool = new PuzzlePool(4, dir)) {
+            pool.load();
+            assertEquals(4, pool.available(Difficulty.EASY));
+            SudokuLogic sudoku = pool.take(Difficulty.EASY);
+            assertTrue(sudoku.hasEmptyCells());
+            assertEquals(id, sudoku.getPuzzleId());
+            assertEquals(SudokuGenerator.generateSudoku(id).toString(), sudoku.toString());
+        }
+    }
+
+    @Test
+    public void damagedFileIsReportedAfterLoadingTheRest() throws Exception {
+        try (PuzzlePool pool = new PuzzlePool(2, dir)) {
+            pool.load();
+            awaitFull(pool);
+            pool.save();
+        }
+        Files.write(dir.resolve("pool-medium.seeds"), new byte[] {'?', '?'});
+        try (PuzzlePool pool = new PuzzlePool(2, dir)) {
+            IOException e = assertThrows(IOException.class, pool::load);
+            assertTrue(e.getMessage().contains("pool-medium.seeds"), e.getMessage());
+            assertEquals(2, pool.available(Difficulty.HARD));
+            awaitFull(pool);
+            assertEquals(2, pool.available(Difficulty.MEDIUM));
+        }
+    }
+
+    @Test
+    public void takeAsyncGeneratesWhenTheStockIsGone() throws Exception {
+        try (PuzzlePool pool = new PuzzlePool(1)) {
+            for (int k = 0; k < 3; k++) {
+                SudokuLogic sudoku = pool.takeAsync(Difficulty.EASY).get();
+                assertEquals(Difficulty.EASY, sudoku.getPuzzleId().getDifficulty());
+                assertTrue(sudoku.hasEmptyCells());
+            }
+        }
+    }
+}
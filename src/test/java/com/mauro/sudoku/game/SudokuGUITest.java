@@ -0,0 +1,39 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+public class SudokuGUITest {
+    @Test
+    public void atlasHoldsOneSquareGlyphPerDigit() {
+        BufferedImage[] digits = SudokuGUI.loadDigits();
+        assertEquals(9, digits.length);
+        for (BufferedImage digit : digits) {
+            assertEquals(digit.getHeight(), digit.getWidth());
+        }
+        // the 1 and the 7 differ somewhere, so the strip is cut at the right places
+        boolean same = true;
+        for (int y = 0; y < digits[0].getHeight() && same; y++) {
+            for (int x = 0; x < digits[0].getWidth() && same; x++) {
+                same = digits[0].getRGB(x, y) == digits[6].getRGB(x, y);
+            }
+        }
+        assertFalse(same);
+    }
+
+    @Test
+    public void newGameWithAutoNotesHasNothingToUndo() {
+        SudokuLogic sudoku = SudokuGenerator.generateSudoku(7L, Difficulty.EASY);
+        SudokuGUI.applyAssists(sudoku, true, true);
+        assertTrue(sudoku.isAutoNotes());
+        assertFalse(sudoku.canUndo());
+        String board = sudoku.toString();
+        assertFalse(sudoku.undo());
+        assertEquals(board, sudoku.toString());
+    }
+}
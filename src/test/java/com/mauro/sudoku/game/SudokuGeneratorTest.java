@@ -0,0 +1,206 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import com.mauro.sudoku.metrics.Metrics;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class SudokuGeneratorTest {
+    private static final String SOLVED =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private static int blanks(int[][] grid) {
+        int n = 0;
+        for (int[] row : grid) {
+            for (int val : row) {
+                if (val == 0) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Test
+    public void digOutKeepsSolutionUnique() {
+        SudokuSolver solver = new SudokuSolver();
+        SolutionCounter counter = new SolutionCounter();
+        SplittableRandom r = new SplittableRandom(42);
+        for (int run = 0; run < 20; run++) {
+            int[][] grid = SudokuSolverTest.parse(SOLVED);
+            int removed = SudokuGenerator.digOut(grid, r, 55, counter);
+            assertEquals(removed, blanks(grid));
+            assertTrue(removed >= 40);
+            assertEquals(1, solver.countSolutions(grid, 2));
+            assertEquals(1, counter.count(grid, 2));
+        }
+    }
+
+    @Test
+    public void generationIsRecordedByFlightRecorder() throws Exception {
+        Path file = Files.createTempFile("generation", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.mauro.sudoku.Generation");
+            recording.enable("com.mauro.sudoku.Solver");
+            recording.start();
+            long graded = Metrics.global().timer("generator.grading").snapshot().getCount();
+            SudokuGenerator.generateSudoku(PuzzleId.of(5, Difficulty.HARD));
+            assertTrue(Metrics.global().timer("generator.grading").snapshot().getCount() > graded);
+            new SudokuSolver().solve(SudokuSolverTest.parse(SOLVED));
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent generation = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.mauro.sudoku.Generation"))
+                .findFirst().orElseThrow();
+            assertEquals("HARD", generation.getString("difficulty"));
+            assertTrue(generation.getInt("blanks") > 0);
+            assertTrue(generation.getDuration("digOutTime").plus(generation.getDuration("gradingTime"))
+                .compareTo(generation.getDuration()) <= 0);
+            assertTrue(generation.getDuration("gradingTime").toNanos() > 0);
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.mauro.sudoku.Solver")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void counterAgreesWithSolver() {
+        SudokuSolver solver = new SudokuSolver();
+        SolutionCounter counter = new SolutionCounter();
+        int[][] grid = SudokuSolverTest.parse(SOLVED);
+        grid[0][0] = grid[0][1] = grid[4][4] = grid[8][8] = 0;
+        assertEquals(solver.countSolutions(grid, 10), counter.count(grid, 10));
+        assertEquals(5, counter.count(new int[9][9], 5));
+    }
+
+    @Test
+    public void batchIsDeterministicForSeed() {
+        List<int[][]> first = new ArrayList<>();
+        List<int[][]> second = new ArrayList<>();
+        SudokuGenerator.generateBatch(150, Difficulty.HARD, 7L, first::add);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            SudokuGenerator.generateBatch(150, Difficulty.HARD, 7L, second::add, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(150, first.size());
+        SudokuSolver solver = new SudokuSolver();
+        for (int k = 0; k < first.size(); k++) {
+            assertArrayEquals(first.get(k), second.get(k));
+            assertTrue(blanks(first.get(k)) <= Difficulty.HARD.getMaxBlanks());
+            assertTrue(solver.hasUniqueSolution(first.get(k)));
+        }
+        SudokuLogic regenerated = SudokuGenerator.generateSudoku(SudokuGenerator.puzzleSeed(7L, 100), Difficulty.HARD);
+        assertEquals(SudokuGenerator.toSudoku(first.get(100)).toString(), regenerated.toString());
+    }
+
+    @Test
+    public void generatedPuzzlesGradeAsTheirDifficulty() {
+        LogicalSolver grader = new LogicalSolver();
+        for (Difficulty d : Difficulty.values()) {
+            for (long seed = 0; seed < 20; seed++) {
+                int[][] grid = SudokuGenerator.generateGrid(PuzzleId.of(seed, d));
+                assertEquals(d, Difficulty.forRating(grader.grade(grid).getRating()), d + " seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    public void solvedBatchHandsOverEachPuzzlesSolution() {
+        SudokuSolver solver = new SudokuSolver();
+        List<int[][]> puzzles = new ArrayList<>();
+        SudokuGenerator.generateSolvedBatch(100, Difficulty.MEDIUM, 5L, (puzzle, solution) -> {
+            int[][] solved = new int[9][9];
+            for (int i = 0; i < 9; i++) {
+                System.arraycopy(puzzle[i], 0, solved[i], 0, 9);
+            }
+            assertTrue(solver.solve(solved));
+            assertArrayEquals(solved, solution);
+            puzzles.add(puzzle);
+        }, ForkJoinPool.commonPool(), null, null);
+        List<int[][]> unsolved = new ArrayList<>();
+        SudokuGenerator.generateBatch(100, Difficulty.MEDIUM, 5L, unsolved::add);
+        assertArrayEquals(unsolved.toArray(), puzzles.toArray());
+    }
+
+    @Test
+    public void batchSkipsPuzzlesSeenBefore() {
+        List<int[][]> first = new ArrayList<>();
+        FingerprintSet seen = new FingerprintSet();
+        SudokuGenerator.generateBatch(70, Difficulty.EASY, 3L, first::add, ForkJoinPool.commonPool(), null, seen);
+        assertEquals(70, seen.size());
+
+        // the first 65 are known by now, so the same seed hands out what comes after them
+        FingerprintSet some = new FingerprintSet();
+        Canonicalizer canon = new Canonicalizer();
+        for (int k = 0; k < 65; k++) {
+            some.add(canon.fingerprint(first.get(k)));
+        }
+        List<int[][]> second = new ArrayList<>();
+        SudokuGenerator.generateBatch(10, Difficulty.EASY, 3L, second::add, ForkJoinPool.commonPool(), null, some);
+        assertEquals(10, second.size());
+        for (int k = 0; k < 5; k++) {
+            assertArrayEquals(first.get(65 + k), second.get(k));
+        }
+        assertTrue(!seen.contains(canon.fingerprint(second.get(9))));
+    }
+
+    @Test
+    public void samePuzzleIdGivesSamePuzzleForEverySize() {
+        for (int box = SudokuGeometry.MIN_BOX; box <= SudokuGeometry.MAX_BOX; box++) {
+            PuzzleId id = PuzzleId.of(0xC0FFEEL + box, box, Difficulty.EASY);
+            SudokuLogic first = SudokuGenerator.generateSudoku(id);
+            SudokuLogic second = SudokuGenerator.generateSudoku(PuzzleId.parse(id.toString()));
+            assertEquals(id, first.getPuzzleId());
+            assertEquals(first.toString(), second.toString());
+            assertTrue(first.hasEmptyCells());
+        }
+        assertNotEquals(SudokuGenerator.generateSudoku(1L, Difficulty.MEDIUM).toString(),
+                        SudokuGenerator.generateSudoku(2L, Difficulty.MEDIUM).toString());
+    }
+
+    @Test
+    public void shuffledGridsAreSolvedForEveryBoxSize() {
+        SplittableRandom r = new SplittableRandom(17);
+        for (int box = SudokuGeometry.MIN_BOX; box <= SudokuGeometry.MAX_BOX; box++) {
+            // enough rounds to start from every 9x9 seed grid
+            for (int round = 0; round < 64; round++) {
+                int[][] grid = new int[box * box][box * box];
+                SudokuGenerator.shuffledSolution(grid, r);
+                SudokuLogic sudoku = SudokuGenerator.toSudoku(grid);
+                assertEquals(box, sudoku.getBoxSize());
+                assertTrue(sudoku.isValidSudoku());
+                assertTrue(!sudoku.hasEmptyCells());
+            }
+        }
+    }
+
+    @Test
+    public void largerBoardsComeOutUnique() {
+        SplittableRandom r = new SplittableRandom(17);
+        for (int box : new int[] {2, 4}) {
+            SudokuSolver solver = new SudokuSolver(box);
+            int[][] grid = new int[box * box][box * box];
+            SudokuGenerator.generateSudoku(grid, Difficulty.MEDIUM, r, new SolutionCounter(box));
+            assertTrue(blanks(grid) > 0);
+            assertEquals(1, solver.countSolutions(grid, 2));
+        }
+    }
+}
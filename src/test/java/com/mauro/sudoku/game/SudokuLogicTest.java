@@ -0,0 +1,340 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.Test;
+
+public class SudokuLogicTest {
+    private static final String SOLVED =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private static SudokuLogic solved() {
+        SudokuLogic sudoku = new SudokuLogic();
+        for (int k = 0; k < 81; k++) {
+            sudoku.put(SOLVED.charAt(k) - '0', k / 9, k % 9);
+        }
+        return sudoku;
+    }
+
+    @Test
+    public void solvedBoardIsValidAndComplete() {
+        SudokuLogic sudoku = solved();
+        assertTrue(sudoku.isValidSudoku());
+        assertFalse(sudoku.hasEmptyCells());
+        assertFalse(sudoku.wrongDigitExistsIn(4, 4));
+    }
+
+    @Test
+    public void duplicateIsReportedAndClearedOnDelete() {
+        SudokuLogic sudoku = solved();
+        sudoku.put(3, 0, 0);
+        assertFalse(sudoku.isValidSudoku());
+        assertTrue(sudoku.wrongDigitExistsIn(0, 5));
+        assertTrue(sudoku.wrongDigitExistsIn(7, 0));
+        assertFalse(sudoku.wrongDigitExistsIn(8, 8));
+
+        sudoku.delete(0, 0);
+        assertTrue(sudoku.isValidSudoku());
+        assertTrue(sudoku.hasEmptyCells());
+
+        sudoku.put(3, 0, 0);
+        sudoku.put(3, 0, 0);
+        sudoku.put(5, 0, 0);
+        assertTrue(sudoku.isValidSudoku());
+        assertFalse(sudoku.hasEmptyCells());
+    }
+
+    @Test
+    public void findConflictsAgreesWithTheBoard() {
+        SudokuLogic sudoku = solved();
+        sudoku.put(3, 0, 0);
+        sudoku.delete(4, 4);
+        int[][] grid = new int[9][9];
+        for (int k = 0; k < 81; k++) {
+            grid[k / 9][k % 9] = k == 0 ? 3 : k == 40 ? 0 : SOLVED.charAt(k) - '0';
+        }
+        long[] expected = new long[2], found = {-1, -1};
+        sudoku.getConflicts(expected);
+        assertTrue(SudokuLogic.findConflicts(grid, found));
+        assertArrayEquals(expected, found);
+
+        grid[0][0] = 5;
+        assertFalse(SudokuLogic.findConflicts(grid, found));
+        assertArrayEquals(new long[2], found);
+    }
+
+    @Test
+    public void notesDoNotCountAsAnswers() {
+        SudokuLogic sudoku = new SudokuLogic();
+        sudoku.toggleNoteTaking();
+        sudoku.put(5, 0, 0);
+        sudoku.put(5, 0, 1);
+        assertTrue(sudoku.isValidSudoku());
+        assertTrue(sudoku.hasEmptyCells());
+    }
+
+    @Test
+    public void notesAndAnswersShareTheExpandedGrid() {
+        SudokuLogic sudoku = new SudokuLogic();
+        sudoku.toggleNoteTaking();
+        sudoku.put(1, 4, 7);
+        sudoku.put(9, 4, 7);
+        assertEquals(1, sudoku.getValueIn(12, 21));
+        assertEquals(9, sudoku.getValueIn(14, 23));
+        assertEquals(0, sudoku.getValueIn(13, 22));
+        assertFalse(sudoku.hasDefinitiveAnswerIn(12, 21));
+
+        sudoku.deleteNote(1, 4, 7);
+        assertEquals(0, sudoku.getValueIn(12, 21));
+
+        sudoku.toggleNoteTaking();
+        sudoku.put(6, 4, 7);
+        for (int i = 12; i < 15; i++) {
+            for (int j = 21; j < 24; j++) {
+                assertEquals(6, sudoku.getValueIn(i, j));
+                assertTrue(sudoku.hasDefinitiveAnswerIn(i, j));
+            }
+        }
+        sudoku.toggleNoteTaking();
+        assertFalse(sudoku.put(2, 4, 7));
+        sudoku.toggleNoteTaking();
+        sudoku.delete(4, 7);
+        assertEquals(0, sudoku.getValueIn(14, 23));
+        assertEquals(-1, sudoku.getValueIn(27, 0));
+    }
+
+    @Test
+    public void candidatesFollowPlacementsAndDeletions() {
+        SudokuLogic sudoku = new SudokuLogic();
+        assertEquals(0x1FF, sudoku.getCandidates(0, 0));
+        sudoku.put(5, 0, 8);
+        sudoku.put(3, 8, 0);
+        sudoku.put(7, 1, 1);
+        assertEquals(0x1FF & ~(1 << 4) & ~(1 << 2) & ~(1 << 6), sudoku.getCandidates(0, 0));
+        assertEquals(0, sudoku.getCandidates(0, 8));
+        sudoku.delete(1, 1);
+        sudoku.put(5, 4, 4);
+        assertEquals(0x1FF & ~(1 << 4) & ~(1 << 2), sudoku.getCandidates(0, 0));
+        sudoku.delete(0, 8);
+        assertEquals(0x1FF & ~(1 << 2), sudoku.getCandidates(0, 0));
+        assertEquals(0x1FF & ~(1 << 4) & ~(1 << 2), sudoku.getCandidates(4, 0));
+    }
+
+    @Test
+    public void autoNotesTrackCandidates() {
+        SudokuLogic sudoku = new SudokuLogic();
+        sudoku.put(1, 0, 0);
+        sudoku.setAutoNotes(true);
+        assertEquals(0, sudoku.getValueIn(3, 0));
+        assertEquals(2, sudoku.getValueIn(3, 1));
+        sudoku.put(2, 1, 4);
+        assertEquals(0, sudoku.getValueIn(3, 1));
+        sudoku.delete(1, 4);
+        assertEquals(2, sudoku.getValueIn(3, 1));
+    }
+
+    @Test
+    public void disabledBoardTakesNoNotes() {
+        SudokuLogic sudoku = new SudokuLogic();
+        sudoku.disable();
+        assertFalse(sudoku.setAutoNotes(true));
+        sudoku.fillNotesWithCandidates();
+        assertEquals(0, sudoku.getValueIn(3, 1));
+        assertFalse(sudoku.canUndo());
+    }
+
+    @Test
+    public void autoRemoveClearsPeerNotesOnly() {
+        SudokuLogic sudoku = new SudokuLogic();
+        sudoku.setAutoRemoveNotes(true);
+        sudoku.toggleNoteTaking();
+        sudoku.put(4, 0, 1);
+        sudoku.put(4, 5, 5);
+        sudoku.toggleNoteTaking();
+        sudoku.put(4, 0, 7);
+        assertEquals(0, sudoku.getValueIn(1, 3));
+        assertEquals(4, sudoku.getValueIn(16, 15));
+    }
+
+    @Test
+    public void undoAndRedoRestoreAnswersAndAssistedNotes() {
+        SudokuLogic sudoku = new SudokuLogic();
+        sudoku.setAutoRemoveNotes(true);
+        sudoku.toggleNoteTaking();
+        sudoku.put(4, 0, 1);
+        sudoku.put(7, 0, 1);
+        sudoku.toggleNoteTaking();
+        sudoku.put(4, 0, 7);
+        assertEquals(0, sudoku.getValueIn(1, 3));
+        assertEquals(4, sudoku.getValueIn(0, 21));
+
+        assertTrue(sudoku.undo());
+        assertEquals(4, sudoku.getValueIn(1, 3));
+        assertEquals(7, sudoku.getValueIn(2, 3));
+        assertFalse(sudoku.hasDefinitiveAnswerIn(0, 21));
+        assertTrue(sudoku.isValidSudoku());
+
+        assertTrue(sudoku.redo());
+        assertEquals(0, sudoku.getValueIn(1, 3));
+        assertEquals(4, sudoku.getValueIn(0, 21));
+        assertFalse(sudoku.redo());
+
+        assertTrue(sudoku.undo());
+        assertTrue(sudoku.undo());
+        assertTrue(sudoku.undo());
+        assertFalse(sudoku.undo());
+        assertEquals(0, sudoku.getValueIn(1, 3));
+        assertTrue(sudoku.canRedo());
+
+        sudoku.put(9, 8, 8);
+        assertFalse(sudoku.canRedo());
+    }
+
+    @Test
+    public void moveLogSurvivesSerialization() {
+        SudokuLogic sudoku = new SudokuLogic();
+        for (int k = 0; k < 9; k++) {
+            sudoku.put(k + 1, k, k);
+        }
+        sudoku.undo();
+        ByteBuffer buffer = ByteBuffer.allocate(sudoku.moveLogSize());
+        sudoku.writeMoveLog(buffer);
+        buffer.flip();
+
+        SudokuLogic copy = new SudokuLogic();
+        for (int k = 0; k < 8; k++) {
+            copy.put(k + 1, k, k);
+        }
+        copy.readMoveLog(buffer);
+        assertTrue(copy.redo());
+        assertEquals(9, copy.getValueIn(24, 24));
+        assertTrue(copy.undo());
+        assertTrue(copy.undo());
+        assertEquals(0, copy.getValueIn(21, 21));
+    }
+
+    @Test
+    public void generatedGivensAreNotUndoable() {
+        assertFalse(SudokuGenerator.generateSudoku(Difficulty.EASY).canUndo());
+    }
+
+    @Test
+    public void givensCannotBeChanged() {
+        int[][] grid = new int[9][9];
+        grid[0][0] = 5;
+        SudokuLogic sudoku = SudokuGenerator.toSudoku(grid);
+        assertTrue(sudoku.isGiven(0, 0));
+        assertFalse(sudoku.isGiven(0, 1));
+        assertFalse(sudoku.put(6, 0, 0));
+        assertFalse(sudoku.delete(0, 0));
+        sudoku.toggleNoteTaking();
+        assertFalse(sudoku.put(6, 0, 0));
+        assertEquals(5, sudoku.getValueIn(1, 1));
+        assertFalse(sudoku.canUndo());
+    }
+
+    @Test
+    public void conflictMaskHoldsExactlyTheClashingCells() {
+        SudokuLogic sudoku = solved();
+        long[] conflicts = new long[2];
+        sudoku.getConflicts(conflicts);
+        assertEquals(0, conflicts[0] | conflicts[1]);
+
+        // (0, 0) becomes 3, clashing with the 3 in its row and box at (0, 1) and in its column at (8, 0)
+        sudoku.put(3, 0, 0);
+        sudoku.getConflicts(conflicts);
+        assertEquals((1L << 0) | (1L << 1), conflicts[0]);
+        assertEquals(1L << (72 - 64), conflicts[1]);
+        assertTrue(sudoku.isConflicting(8, 0));
+        assertFalse(sudoku.isConflicting(0, 2));
+
+        // a third 3 in the same column, which also meets the 3 of its row at (7, 7)
+        sudoku.put(3, 7, 0);
+        sudoku.getConflicts(conflicts);
+        assertEquals((1L << 0) | (1L << 1) | (1L << 63), conflicts[0]);
+        assertEquals((1L << (70 - 64)) | (1L << (72 - 64)), conflicts[1]);
+
+        sudoku.undo();
+        sudoku.delete(0, 1);
+        sudoku.getConflicts(conflicts);
+        assertEquals(1L << 0, conflicts[0]);
+        assertEquals(1L << (72 - 64), conflicts[1]);
+        sudoku.put(5, 0, 0);
+        sudoku.getConflicts(conflicts);
+        assertEquals(0, conflicts[0] | conflicts[1]);
+    }
+
+    @Test
+    public void hintsWalkAHardPuzzleToItsSolution() {
+        for (long seed = 1; seed <= 20; seed++) {
+            SudokuLogic sudoku = SudokuGenerator.generateSudoku(seed, Difficulty.HARD);
+            int[][] solution = new int[9][9];
+            for (int k = 0; k < 81; k++) {
+                solution[k / 9][k % 9] = sudoku.isGiven(k / 9, k % 9) ? sudoku.getValueIn(k / 9 * 3, k % 9 * 3) : 0;
+            }
+            assertTrue(new SudokuSolver().solve(solution));
+
+            int steps = 0;
+            while (sudoku.hasEmptyCells()) {
+                Hint hint = sudoku.hint();
+                assertTrue(hint.getCells().length > 0);
+                int i = hint.getRow(), j = hint.getColumn();
+                if (hint.isPlacement()) {
+                    assertEquals(solution[i][j], hint.getDigit());
+                    assertTrue(sudoku.put(hint.getDigit(), i, j));
+                } else {
+                    for (int k = 0; k < 81; k++) {
+                        assertEquals(0, hint.getRemoved(k) & 1L << (solution[k / 9][k % 9] - 1));
+                    }
+                    assertTrue((hint.getRemoved(i * 9 + j) & 1L << (hint.getDigit() - 1)) != 0);
+                }
+                assertTrue(++steps < 500);
+            }
+            assertTrue(sudoku.isValidSudoku());
+            assertEquals(null, sudoku.hint());
+        }
+    }
+
+    @Test
+    public void hintsNameTheirTechnique() {
+        SudokuLogic sudoku = solved();
+        sudoku.delete(4, 4);
+        Hint hint = sudoku.hint();
+        assertEquals(Technique.HIDDEN_SINGLE, hint.getTechnique());
+        assertEquals(5, hint.getDigit());
+        assertEquals(9, hint.getCells().length);
+
+        sudoku.put(6, 4, 4);
+        assertEquals(null, sudoku.hint());
+    }
+
+    @Test
+    public void sixteenBySixteenBoardsUseTheSameRules() {
+        SudokuLogic sudoku = new SudokuLogic(4);
+        assertEquals(16, sudoku.getSize());
+        assertFalse(sudoku.put(17, 0, 0));
+        assertTrue(sudoku.put(16, 0, 0));
+        assertEquals(16, sudoku.getValueIn(3, 3));
+        assertEquals((1L << 16) - 1 - (1L << 15), sudoku.getCandidates(0, 15));
+        assertEquals((1L << 16) - 1, sudoku.getCandidates(15, 15));
+
+        sudoku.put(16, 3, 3);
+        assertTrue(sudoku.isConflicting(0, 0));
+        assertTrue(sudoku.isConflicting(3, 3));
+        long[] conflicts = new long[4];
+        sudoku.getConflicts(conflicts);
+        assertEquals(1L | 1L << 51, conflicts[0]);
+
+        sudoku.toggleNoteTaking();
+        sudoku.put(14, 15, 15);
+        // note 14 sits at position 13 of the 4x4 block of cell (15, 15)
+        assertEquals(14, sudoku.getValueIn(63, 61));
+        assertTrue(sudoku.undo());
+        assertEquals(0, sudoku.getValueIn(63, 61));
+    }
+}
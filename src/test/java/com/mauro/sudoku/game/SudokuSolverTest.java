@@ -0,0 +1,78 @@
+package com.mauro.sudoku.game;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class SudokuSolverTest {
+    private static final String EASY =
+        "530070000600195000098000060800060003400803001700020006060000280000419005000080079";
+    private static final String EASY_SOLUTION =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+    private static final String SEVENTEEN =
+        "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+
+    static int[][] parse(String line) {
+        int[][] grid = new int[9][9];
+        for (int k = 0; k < 81; k++) {
+            char c = line.charAt(k);
+            grid[k / 9][k % 9] = c == '.' ? 0 : c - '0';
+        }
+        return grid;
+    }
+
+    @Test
+    public void solvesEasyPuzzleInPlace() {
+        SudokuSolver solver = new SudokuSolver();
+        int[][] grid = parse(EASY);
+        assertTrue(solver.solve(grid));
+        assertArrayEquals(parse(EASY_SOLUTION), grid);
+        assertTrue(solver.getNodeCount() > 0);
+    }
+
+    @Test
+    public void seventeenClueIsUnique() {
+        SudokuSolver solver = new SudokuSolver();
+        int[][] grid = parse(SEVENTEEN);
+        assertTrue(solver.hasUniqueSolution(grid));
+        assertArrayEquals(parse(SEVENTEEN), grid);
+        assertTrue(solver.solve(grid));
+        assertEquals(1, solver.countSolutions(grid, 2));
+    }
+
+    @Test
+    public void hardPuzzleHitsDeadEnds() {
+        SudokuSolver solver = new SudokuSolver();
+        assertTrue(solver.hasUniqueSolution(parse(
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......")));
+        assertTrue(solver.getBacktrackCount() > 0);
+        assertTrue(solver.getBacktrackCount() < solver.getNodeCount());
+        solver.solve(parse(EASY));
+        assertEquals(0, solver.getBacktrackCount());
+    }
+
+    @Test
+    public void countsStopAtLimit() {
+        SudokuSolver solver = new SudokuSolver();
+        int[][] empty = new int[9][9];
+        assertEquals(5, solver.countSolutions(empty, 5));
+        int[][] grid = parse(EASY);
+        grid[0][0] = 0;
+        grid[0][1] = 0;
+        assertEquals(2, solver.countSolutions(grid, 10));
+        assertFalse(solver.hasUniqueSolution(grid));
+    }
+
+    @Test
+    public void conflictingGivensHaveNoSolution() {
+        SudokuSolver solver = new SudokuSolver();
+        int[][] grid = parse(EASY);
+        grid[0][2] = 5;
+        assertFalse(solver.solve(grid));
+        assertEquals(0, solver.countSolutions(grid, 2));
+        assertTrue(solver.solve(parse(EASY)));
+    }
+}
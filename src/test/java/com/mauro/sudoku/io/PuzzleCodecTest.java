@@ -0,0 +1,164 @@
+package com.mauro.sudoku.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PuzzleCodecTest {
+    private static final String PUZZLE =
+        "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+    private static final String SOLUTION =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    @TempDir
+    Path dir;
+
+    private static int[][] grid(String line) {
+        int[][] grid = new int[9][9];
+        assertTrue(LineCodec.decode(line, grid));
+        return grid;
+    }
+
+    @Test
+    public void binaryRoundTripTakesFortyOneBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        BinaryCodec.encode(grid(SOLUTION), buffer);
+        assertEquals(BinaryCodec.LENGTH, buffer.position());
+        buffer.flip();
+        int[][] decoded = new int[9][9];
+        assertTrue(BinaryCodec.decode(buffer, decoded));
+        assertArrayEquals(grid(SOLUTION), decoded);
+        assertTrue(BinaryCodec.decode(buffer, 0, decoded));
+        assertArrayEquals(grid(SOLUTION), decoded);
+    }
+
+    @Test
+    public void lineRoundTrip() {
+        assertEquals(PUZZLE, LineCodec.toLine(grid(PUZZLE)));
+        assertFalse(LineCodec.decode("53x" + PUZZLE.substring(3), new int[9][9]));
+    }
+
+    @Test
+    public void binaryFileStreamsAndMaps() throws IOException {
+        Path file = dir.resolve("pack.sdkb");
+        int[][] puzzle = grid(PUZZLE), solution = grid(SOLUTION);
+        try (PuzzleWriter writer = PuzzleWriter.create(file, PuzzleFormat.BINARY, true)) {
+            for (int k = 0; k < 5000; k++) {
+                puzzle[8][8] = k % 10;
+                writer.write(puzzle, solution);
+            }
+        }
+        assertEquals(PuzzleFormat.HEADER_LENGTH + 5000L * 2 * BinaryCodec.LENGTH, Files.size(file));
+
+        int[][] readPuzzle = new int[9][9], readSolution = new int[9][9];
+        try (PuzzleReader reader = PuzzleReader.open(file)) {
+            assertEquals(PuzzleFormat.BINARY, reader.getFormat());
+            int k = 0;
+            while (reader.next(readPuzzle, readSolution)) {
+                assertTrue(reader.hasSolution());
+                assertEquals(k % 10, readPuzzle[8][8]);
+                assertArrayEquals(solution, readSolution);
+                k++;
+            }
+            assertEquals(5000, k);
+        }
+
+        try (MappedPuzzleFile mapped = MappedPuzzleFile.open(file)) {
+            assertEquals(5000, mapped.size());
+            assertTrue(mapped.read(4321, readPuzzle, readSolution));
+            assertEquals(1, readPuzzle[8][8]);
+            assertArrayEquals(solution, readSolution);
+        }
+    }
+
+    @Test
+    public void lineFileSkipsCommentsAndReadsSolutions() throws IOException {
+        Path file = dir.resolve("pack.txt");
+        Files.write(file, ("# pack\r\n" + PUZZLE + "," + SOLUTION + "\r\n\n" + PUZZLE.replace('.', '0'))
+            .getBytes(StandardCharsets.US_ASCII));
+        int[][] puzzle = new int[9][9], solution = new int[9][9];
+        try (PuzzleReader reader = PuzzleReader.open(file)) {
+            assertEquals(PuzzleFormat.LINE, reader.getFormat());
+            assertTrue(reader.next(puzzle, solution));
+            assertTrue(reader.hasSolution());
+            assertArrayEquals(grid(SOLUTION), solution);
+            assertTrue(reader.next(puzzle, solution));
+            assertFalse(reader.hasSolution());
+            assertArrayEquals(grid(PUZZLE), puzzle);
+            assertFalse(reader.next(puzzle));
+        }
+
+        Path out = dir.resolve("out.txt");
+        try (PuzzleWriter writer = PuzzleWriter.create(out, PuzzleFormat.LINE, false)) {
+            writer.write(puzzle);
+        }
+        assertEquals(PUZZLE + "\n", Files.readString(out));
+    }
+
+    // A pipe that hands over at most chunk bytes per read, and then either
+    // reports the end or fails like a reader left waiting for more input.
+    private static ReadableByteChannel pipe(byte[] bytes, int chunk, boolean ends) {
+        return new ReadableByteChannel() {
+            private int position;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                if (position == bytes.length) {
+                    if (ends) {
+                        return -1;
+                    }
+                    throw new IOException("blocked");
+                }
+                int length = Math.min(Math.min(chunk, dst.remaining()), bytes.length - position);
+                dst.put(bytes, position, length);
+                position += length;
+                return length;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Test
+    public void readerHandsOverEachPuzzleAsItArrives() throws IOException {
+        int[][] puzzle = new int[9][9];
+        byte[] line = (PUZZLE + "\n").getBytes(StandardCharsets.US_ASCII);
+        try (PuzzleReader reader = PuzzleReader.open(pipe(line, line.length, false))) {
+            assertTrue(reader.next(puzzle));
+            assertArrayEquals(grid(PUZZLE), puzzle);
+            assertThrows(IOException.class, () -> reader.next(puzzle));
+        }
+
+        ByteBuffer binary = ByteBuffer.allocate(PuzzleFormat.HEADER_LENGTH + 3 * BinaryCodec.LENGTH);
+        binary.put(PuzzleFormat.MAGIC).put((byte) PuzzleFormat.VERSION).put(new byte[3]);
+        for (int k = 0; k < 3; k++) {
+            BinaryCodec.encode(grid(PUZZLE), binary);
+        }
+        try (PuzzleReader reader = PuzzleReader.open(pipe(binary.array(), 3, true))) {
+            assertEquals(PuzzleFormat.BINARY, reader.getFormat());
+            while (reader.next(puzzle)) {
+                assertArrayEquals(grid(PUZZLE), puzzle);
+            }
+            assertEquals(3, reader.count());
+        }
+    }
+}
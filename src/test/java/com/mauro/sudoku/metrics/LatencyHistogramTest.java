@@ -0,0 +1,45 @@
+package com.mauro.sudoku.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void percentilesStayWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(100_000_000, histogram.getMax());
+        for (double p : new double[] {50, 90, 99, 99.9}) {
+            double expected = p * 1_000_000;
+            double actual = histogram.valueAt(p);
+            assertTrue(Math.abs(actual - expected) / expected < 0.02, p + ": " + actual);
+        }
+        assertEquals(100_000_000, histogram.valueAt(100));
+    }
+
+    @Test
+    public void bucketsCoverEveryValue() {
+        for (long v : new long[] {0, 1, 127, 128, 129, 1_000_003, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(v);
+            assertTrue(LatencyHistogram.highestIn(index) >= v, Long.toString(v));
+            assertTrue(index == 0 || LatencyHistogram.highestIn(index - 1) < v, Long.toString(v));
+        }
+    }
+
+    @Test
+    public void mergesHistograms() {
+        LatencyHistogram a = new LatencyHistogram(), b = new LatencyHistogram();
+        a.record(10);
+        b.record(30);
+        a.add(b);
+        assertEquals(2, a.getCount());
+        assertEquals(20.0, a.getMean());
+        assertEquals(30, a.valueAt(99));
+    }
+}
@@ -0,0 +1,61 @@
+package com.mauro.sudoku.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsTest {
+    @Test
+    public void handlesAreSharedByName() {
+        Metrics metrics = new Metrics();
+        assertSame(metrics.counter("a"), metrics.counter("a"));
+        assertSame(metrics.timer("t"), metrics.timer("t"));
+        metrics.counter("a").add(3);
+        metrics.counter("a").increment();
+        assertEquals(4, metrics.counter("a").get());
+    }
+
+    @Test
+    public void dumpListsWhatWasRecorded() {
+        Metrics metrics = new Metrics();
+        metrics.counter("solver.nodes").add(1234);
+        metrics.counter("unused");
+        for (int k = 1; k <= 100; k++) {
+            metrics.timer("solver.run").record(k * 1000L);
+        }
+        String dump = metrics.dump();
+        assertTrue(dump.contains("solver.nodes             1234"), dump);
+        assertTrue(dump.contains("solver.run               count 100  mean 50.5  p50 "), dump);
+        assertFalse(dump.contains("unused"), dump);
+
+        metrics.reset();
+        assertEquals("", metrics.dump());
+        assertEquals(0, metrics.timer("solver.run").snapshot().getCount());
+    }
+
+    @Test
+    public void timerMergesEveryThreadsRecords() throws InterruptedException {
+        Metrics.Timer timer = new Metrics().timer("t");
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            long value = (t + 1) * 1000L;
+            threads[t] = new Thread(() -> {
+                for (int k = 0; k < 10_000; k++) {
+                    timer.record(value);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram merged = timer.snapshot();
+        assertEquals(80_000, merged.getCount());
+        assertEquals(4500, merged.getMean(), 1e-9);
+        assertEquals(1000, merged.getMin());
+        assertEquals(8000, merged.getMax());
+    }
+}
@@ -0,0 +1,89 @@
+package com.mauro.sudoku.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class PuzzleServerTest {
+    private static final String PUZZLE =
+        "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+    private static final String SOLUTION =
+        "417369825632158947958724316825437169791586432346912758289643571573291684164875293";
+
+    private static PuzzleServer server;
+    private static final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void start() throws Exception {
+        server = PuzzleServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4);
+    }
+
+    @AfterAll
+    public static void stop() {
+        server.close();
+    }
+
+    private static URI uri(String pathAndQuery) {
+        return URI.create("http://localhost:" + server.getPort() + pathAndQuery);
+    }
+
+    private static HttpResponse<String> get(String pathAndQuery) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(pathAndQuery)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> post(String path, String body) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                           HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void servesPuzzlesByDifficultyAndId() throws Exception {
+        HttpResponse<String> response = get("/puzzle?difficulty=hard");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().matches("\\{\"id\":\"9H-[0-9A-F]{16}\",\"difficulty\":\"hard\",\"puzzle\":\"[.1-9]{81}\"}"),
+                   response.body());
+
+        String id = response.body().substring(7, 26);
+        assertEquals(response.body(), get("/puzzle?id=" + id).body());
+        assertEquals(400, get("/puzzle?difficulty=impossible").statusCode());
+        assertEquals(400, get("/puzzle?id=16E-0000000000000001").statusCode());
+    }
+
+    @Test
+    public void validatesSolvesAndHints() throws Exception {
+        assertEquals("{\"valid\":true,\"complete\":false,\"conflicts\":[]}",
+                     get("/validate?puzzle=" + PUZZLE).body());
+        assertEquals("{\"valid\":false,\"complete\":false,\"conflicts\":[0,1]}",
+                     post("/validate", "44" + PUZZLE.substring(2)).body());
+        assertEquals("{\"solution\":\"" + SOLUTION + "\"}", post("/solve", PUZZLE).body());
+        assertEquals(422, post("/solve", "." + PUZZLE.substring(1)).statusCode());
+
+        HttpResponse<String> hint = post("/hint", PUZZLE + "\n");
+        assertEquals(200, hint.statusCode());
+        assertTrue(hint.body().contains("\"placement\":true"), hint.body());
+        assertEquals(400, post("/hint", "12345").statusCode());
+    }
+
+    @Test
+    public void loadTestReportsEveryRequest() throws Exception {
+        LoadTest test = LoadTest.run(uri("/validate?puzzle=" + PUZZLE), 200, 50);
+        assertEquals(200, test.getCount());
+        assertEquals(0, test.getErrors());
+        assertEquals(200, test.getLatencies().getCount());
+        assertTrue(test.getLatencies().valueAt(50) <= test.getLatencies().valueAt(99));
+
+        test = LoadTest.run(uri("/puzzle?difficulty=impossible"), 20, 5);
+        assertEquals(20, test.getErrors());
+        assertEquals(0, test.getLatencies().getCount());
+    }
+}